@@ -0,0 +1,77 @@
+package com.marcos.studyasistant.documentservice.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LanguageTextCleaner against the regex chain it replaced, on extracted text from sample study
+ * documents repeated up to the given size. Run with {@code -prof gc} to compare allocations too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LanguageTextCleanerBenchmark {
+
+    @Param({"apuntes-historia-es.txt", "lecture-notes-networks-en.txt"})
+    private String document;
+
+    // 5 MB is the text of a long PDF
+    @Param({"20000", "5000000"})
+    private int chars;
+
+    private String text;
+
+    @Setup
+    public void loadDocument() {
+        String sample = readSample(document);
+        StringBuilder builder = new StringBuilder(chars);
+        while (builder.length() < chars) {
+            builder.append(sample, 0, Math.min(sample.length(), chars - builder.length()));
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public String regexChain() {
+        return text
+                .replaceAll("https?://[\\w\\.-]+(?:/[\\w\\.-]*)*(?:\\?[\\w&=%\\.-]*)?", " ")
+                .replaceAll("[\\w\\.-]+@[\\w\\.-]+\\.[a-zA-Z]{2,}", " ")
+                .replaceAll("\\b\\d{4,}\\b", " ")
+                .replaceAll("[^\\p{L}\\p{N}\\s\\p{Punct}]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return LanguageTextCleaner.clean(text);
+    }
+
+    private static String readSample(String name) {
+        try (InputStream in = LanguageTextCleanerBenchmark.class.getResourceAsStream("/documents/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Sample document not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
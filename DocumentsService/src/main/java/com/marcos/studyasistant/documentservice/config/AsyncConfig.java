@@ -1,23 +1,93 @@
 package com.marcos.studyasistant.documentservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    @Value("${documents.processing.worker.concurrency:2}")
+    private int workerConcurrency;
+
     @Bean(name = "documentProcessingExecutor")
     public Executor documentProcessingExecutor() {
+        // The processing queue never hands out more jobs than there are workers,
+        // so the executor itself does not need to buffer work
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(workerConcurrency);
+        executor.setMaxPoolSize(workerConcurrency);
+        executor.setQueueCapacity(workerConcurrency);
         executor.setThreadNamePrefix("DocProcessor-");
         executor.initialize();
         return executor;
     }
+
+    // Post-extraction stages of a single document: text storage, segmentation, language detection,
+    // page count and auto-tagging side by side, then the search index. A timed-out stage may still
+    // hold its thread when the search index starts, so all six are counted
+    private static final int STAGES_PER_DOCUMENT = 6;
+
+    @Bean(name = "documentStageExecutor")
+    public Executor documentStageExecutor() {
+        // Sized so every worker can have all of its stages running at once. Should stages that
+        // ignore their interruption ever saturate it, a new stage is rejected and fails on its own:
+        // running it on the worker instead would put it beyond the reach of its timeout
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerConcurrency * STAGES_PER_DOCUMENT);
+        executor.setMaxPoolSize(workerConcurrency * STAGES_PER_DOCUMENT);
+        executor.setQueueCapacity(workerConcurrency * STAGES_PER_DOCUMENT);
+        executor.setThreadNamePrefix("DocStage-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Value("${minio.multipart.concurrency:4}")
+    private int multipartConcurrency;
+
+    @Bean(name = "storageUploadExecutor")
+    public Executor storageUploadExecutor() {
+        // Uploads share one bound on parts in flight, equal to the threads plus the queue,
+        // so a part is never rejected however many uploads run at once
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(multipartConcurrency);
+        executor.setMaxPoolSize(multipartConcurrency);
+        executor.setQueueCapacity(multipartConcurrency);
+        executor.setThreadNamePrefix("MinioPart-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "tagStatisticsExecutor")
+    public Executor tagStatisticsExecutor() {
+        // The hourly recount runs here rather than on a scheduler thread. One waiting run is
+        // enough: a recount asked for while another is pending adds nothing
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("TagStats-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "processingLogFlushExecutor")
+    public Executor processingLogFlushExecutor() {
+        // Flushes triggered by a full batch. One waiting flush drains everything buffered by the
+        // time it runs, so further requests are dropped rather than queued
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("ProcessingLog-");
+        executor.initialize();
+        return executor;
+    }
 }
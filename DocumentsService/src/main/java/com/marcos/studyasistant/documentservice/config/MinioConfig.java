@@ -1,5 +1,6 @@
 package com.marcos.studyasistant.documentservice.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,4 +29,12 @@ public class MinioConfig {
                 .credentials(minioAccessKey, minioSecretKey)
                 .build();
     }
+
+    @Bean
+    public MultipartMinioClient multipartMinioClient() {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(minioUrl)
+                .credentials(minioAccessKey, minioSecretKey)
+                .build());
+    }
 }
@@ -0,0 +1,70 @@
+package com.marcos.studyasistant.documentservice.config;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Exposes the S3 multipart primitives that {@link MinioAsyncClient} keeps protected, so large
+ * objects can be uploaded part by part instead of through a single serial {@code putObject}.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String createMultipartUpload(String bucket, String object, String contentType) throws Exception {
+        Multimap<String, String> headers = contentType != null
+                ? ImmutableMultimap.of("Content-Type", contentType)
+                : ImmutableMultimap.of();
+        return await(createMultipartUploadAsync(bucket, null, object, headers, null))
+                .result()
+                .uploadId();
+    }
+
+    public Part uploadPart(String bucket, String object, String uploadId, int partNumber, byte[] data)
+            throws Exception {
+        String etag = await(uploadPartAsync(bucket, null, object, data, data.length, uploadId, partNumber, null, null))
+                .etag();
+        return new Part(partNumber, etag);
+    }
+
+    public void completeMultipartUpload(String bucket, String object, String uploadId, Part[] parts)
+            throws Exception {
+        await(completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null));
+    }
+
+    public List<Part> listParts(String bucket, String object, String uploadId) throws Exception {
+        List<Part> parts = new ArrayList<>();
+        Integer marker = null;
+        ListPartsResult result;
+        do {
+            result = await(listPartsAsync(bucket, null, object, null, marker, uploadId, null, null)).result();
+            parts.addAll(result.partList());
+            marker = result.nextPartNumberMarker();
+        } while (result.isTruncated());
+        return parts;
+    }
+
+    public void abortMultipartUpload(String bucket, String object, String uploadId) throws Exception {
+        await(abortMultipartUploadAsync(bucket, null, object, uploadId, null, null));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.marcos.studyasistant.documentservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class SchedulingConfig {
+
+    @Value("${documents.scheduling.pool-size:4}")
+    private int poolSize;
+
+    // Default scheduler for @Scheduled methods; defining it here replaces Boot's single-threaded one
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("DocScheduler-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    @Bean(name = "leaseScheduler")
+    public ThreadPoolTaskScheduler leaseScheduler() {
+        // Lease renewal and the expired-lease sweep must never wait behind slower periodic work,
+        // or a live job's lease could lapse and another instance would run it again
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("DocLease-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -1,23 +1,64 @@
 package com.marcos.studyasistant.documentservice.controller;
 
+import com.marcos.studyasistant.documentservice.dto.BulkTagRequestDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentContentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentFileDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentPagesResponseDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentSearchResultDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentStatusResponseDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentUploadRequestDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionRequestDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionResponseDto;
+import com.marcos.studyasistant.documentservice.entity.DocumentTag;
+import com.marcos.studyasistant.documentservice.service.DocumentSearchService;
+import com.marcos.studyasistant.documentservice.service.DocumentTagService;
+import com.marcos.studyasistant.documentservice.service.DocumentUploadSessionService;
 import com.marcos.studyasistant.documentservice.service.DocumentsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/documents")
 public class DocumentsController {
 
+    private static final int STREAM_BUFFER_BYTES = 8192;
+
+    @Value("${documents.download.redirect:false}")
+    private boolean redirectDownloads;
+
     private final DocumentsService documentsService;
+    private final DocumentUploadSessionService documentUploadSessionService;
+    private final DocumentTagService documentTagService;
+    private final DocumentSearchService documentSearchService;
 
-    public DocumentsController(DocumentsService documentsService) {
+    public DocumentsController(DocumentsService documentsService,
+                               DocumentUploadSessionService documentUploadSessionService,
+                               DocumentTagService documentTagService,
+                               DocumentSearchService documentSearchService) {
         this.documentsService = documentsService;
+        this.documentUploadSessionService = documentUploadSessionService;
+        this.documentTagService = documentTagService;
+        this.documentSearchService = documentSearchService;
     }
 
     @PostMapping("/upload")
@@ -25,7 +66,45 @@ public class DocumentsController {
             @ModelAttribute DocumentUploadRequestDto documentUploadRequestDto) {
 
         DocumentResponseDto response = documentsService.uploadDocument(documentUploadRequestDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return ResponseEntity.accepted().location(statusUri(response.id())).body(response);
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionResponseDto> initiateUpload(@RequestBody UploadSessionRequestDto request) {
+        UploadSessionResponseDto session = documentUploadSessionService.initiate(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+
+    @PutMapping(value = "/uploads/{sessionId}/chunks/{chunkNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> uploadChunk(@PathVariable UUID sessionId,
+                                            @PathVariable int chunkNumber,
+                                            @RequestBody byte[] chunk) {
+        documentUploadSessionService.uploadChunk(sessionId, chunkNumber, chunk);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    public ResponseEntity<UploadSessionResponseDto> getUploadSession(@PathVariable UUID sessionId) {
+        return ResponseEntity.ok(documentUploadSessionService.getSession(sessionId));
+    }
+
+    @PostMapping("/uploads/{sessionId}/complete")
+    public ResponseEntity<DocumentResponseDto> completeUpload(@PathVariable UUID sessionId) {
+        DocumentResponseDto response = documentUploadSessionService.finalizeUpload(sessionId);
+        return ResponseEntity.accepted().location(statusUri(response.id())).body(response);
+    }
+
+    @DeleteMapping("/uploads/{sessionId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable UUID sessionId) {
+        documentUploadSessionService.abort(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<DocumentSearchResultDto>> search(@RequestParam UUID userId,
+                                                                @RequestParam("q") String query,
+                                                                @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(documentSearchService.search(userId, query, limit));
     }
 
     @GetMapping("/{id}")
@@ -34,10 +113,143 @@ public class DocumentsController {
         return ResponseEntity.ok(document);
     }
 
+    @GetMapping("/{id}/status")
+    public ResponseEntity<DocumentStatusResponseDto> getDocumentStatus(@PathVariable UUID id) {
+        DocumentStatusResponseDto status = documentsService.getDocumentStatus(id);
+        return ResponseEntity.ok(status);
+    }
+
     @GetMapping("/{id}/content")
-    public ResponseEntity<DocumentContentResponseDto> getDocumentContent(@PathVariable UUID id) {
-        DocumentContentResponseDto documentContentResponseDto = documentsService.getDocumentContent(id);
-        return ResponseEntity.ok(documentContentResponseDto);
+    public ResponseEntity<StreamingResponseBody> getDocumentContent(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(required = false) Long length,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        DocumentContentResponseDto content = documentsService.getDocumentContent(id, offset, length);
+        if (!content.isAvailable()) {
+            return ResponseEntity.noContent().build();
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("X-Text-Offset", String.valueOf(content.offset()))
+                .header("X-Text-Length", String.valueOf(content.length()))
+                .header("X-Text-Total-Length", String.valueOf(content.textLength()));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Written straight to the response in chunks; the text is never held in full
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, STREAM_BUFFER_BYTES) : outputStream;
+            Writer writer = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+            documentsService.writeDocumentContent(content, writer);
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+        return response.body(body);
+    }
+
+    /**
+     * Serves the original upload. Single byte ranges are honoured (guarded by If-Range), so PDF
+     * viewers can fetch only what they render; the bytes are piped from storage without buffering.
+     * With {@code redirect=true} the client is sent to a pre-signed storage URL instead.
+     */
+    @GetMapping("/{id}/file")
+    public ResponseEntity<StreamingResponseBody> downloadDocumentFile(
+            @PathVariable UUID id,
+            @RequestParam(required = false) Boolean redirect,
+            @RequestHeader HttpHeaders requestHeaders) {
+
+        DocumentFileDto file = documentsService.getDocumentFile(id);
+        if (redirect != null ? redirect : redirectDownloads) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(documentsService.getDocumentFileUrl(file))
+                    .build();
+        }
+
+        String etag = file.hash() != null ? "\"" + file.hash() + "\"" : null;
+        if (ifNoneMatchMatches(requestHeaders, etag)) {
+            ResponseEntity.BodyBuilder notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+            if (etag != null) {
+                notModified.eTag(etag);
+            }
+            return notModified.build();
+        }
+
+        long size = file.size();
+        long start = 0;
+        long end = size - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        HttpRange range = requestedRange(requestHeaders, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+                status = HttpStatus.PARTIAL_CONTENT;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+        }
+
+        long offset = start;
+        long length = end - start + 1;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .contentType(file.mimeType() != null
+                        ? MediaType.parseMediaType(file.mimeType())
+                        : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(file.filename(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            if (length <= 0) {
+                return;
+            }
+            try (InputStream in = documentsService.openDocumentFile(file, offset, length)) {
+                in.transferTo(outputStream);
+            }
+        };
+        return response.body(body);
+    }
+
+    @GetMapping("/{id}/pages")
+    public ResponseEntity<DocumentPagesResponseDto> getDocumentPages(@PathVariable UUID id,
+                                                                     @RequestParam(defaultValue = "1") int from,
+                                                                     @RequestParam(required = false) Integer to) {
+        return ResponseEntity.ok(documentsService.getDocumentPages(id, from, to));
+    }
+
+    @PostMapping("/tags")
+    public ResponseEntity<Map<UUID, Long>> addTags(@RequestBody BulkTagRequestDto request) {
+        List<DocumentTag> tags = documentTagService.addTagsToDocuments(request.tags());
+        Map<UUID, Long> tagsPerDocument = tags.stream()
+                .collect(Collectors.groupingBy(tag -> tag.getDocument().getId(), Collectors.counting()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(tagsPerDocument);
+    }
+
+    @GetMapping("/tags/top")
+    public ResponseEntity<List<String>> getTopTags(@RequestParam(required = false) UUID userId,
+                                                   @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userId != null
+                ? documentTagService.getMostUsedTags(userId, limit)
+                : documentTagService.getMostUsedTags(limit));
     }
 
     @DeleteMapping("/{id}")
@@ -46,5 +258,93 @@ public class DocumentsController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * The single range the client asked for, or {@code null} to send the whole file: no Range,
+     * an unparsable or multi-part one, or an If-Range that does not match the current ETag.
+     */
+    private HttpRange requestedRange(HttpHeaders requestHeaders, String etag) {
+        if (requestHeaders.getFirst(HttpHeaders.RANGE) == null) {
+            return null;
+        }
+
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        // Only strong ETags validate a range; we keep no Last-Modified to compare dates against
+        if (ifRange != null && (etag == null || !ifRange.trim().equals(etag))) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = requestHeaders.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-None-Match as RFC 9110 evaluates it for a GET: {@code *} matches any existing file,
+     * otherwise any listed entity tag matches under weak comparison ({@code W/"x"} equals
+     * {@code "x"}). Every occurrence of the header counts, each a comma-separated list.
+     */
+    private boolean ifNoneMatchMatches(HttpHeaders requestHeaders, String etag) {
+        List<String> values = requestHeaders.get(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            int i = 0;
+            while (i < value.length()) {
+                char c = value.charAt(i);
+                if (c == '*') {
+                    return true;
+                }
+                if (c == '"' || value.startsWith("W/\"", i)) {
+                    int open = value.indexOf('"', i);
+                    int close = value.indexOf('"', open + 1);
+                    if (close < 0) {
+                        // Unterminated tag: the header is malformed, so it cannot match
+                        return false;
+                    }
+                    // A comma may appear inside the quotes, so tags are scanned rather than split
+                    if (etag != null && value.regionMatches(open, etag, 0, etag.length()) && close == open + etag.length() - 1) {
+                        return true;
+                    }
+                    i = close + 1;
+                } else {
+                    i++;
+                }
+            }
+        }
+        return false;
+    }
 
+    // "gzip" or "*" without q=0
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                    refused = true;
+                }
+            }
+            return !refused;
+        }
+        return false;
+    }
+
+    private URI statusUri(UUID documentId) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/documents/{id}/status")
+                .buildAndExpand(documentId)
+                .toUri();
+    }
 }
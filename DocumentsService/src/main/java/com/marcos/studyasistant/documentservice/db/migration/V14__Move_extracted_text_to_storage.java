@@ -0,0 +1,89 @@
+package com.marcos.studyasistant.documentservice.db.migration;
+
+import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.Reader;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+/**
+ * Moves the text extracted before it was kept in the storage out of the {@code extracted_text}
+ * large objects: each text is stored gzip-compressed next to its document, exactly as new
+ * extractions are, and the document gets its path and length. V15 drops the column afterwards.
+ * <p>
+ * Documents are read in batches by id. A run that fails rolls back with the migration and the
+ * next one stores the same objects again under the same names.
+ */
+@Component
+@Slf4j
+public class V14__Move_extracted_text_to_storage extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final DocumentsStorageService documentsStorageService;
+
+    @Value("${documents.extraction.spill.memory-chars:1048576}")
+    private int spillMemoryChars;
+
+    public V14__Move_extracted_text_to_storage(DocumentsStorageService documentsStorageService) {
+        this.documentsStorageService = documentsStorageService;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        UUID lastId = new UUID(0, 0);
+        long moved = 0;
+
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, file_path, extracted_text FROM documents " +
+                     "WHERE extracted_text IS NOT NULL AND extracted_text_path IS NULL AND id > ? " +
+                     "ORDER BY id LIMIT ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE documents SET extracted_text_path = ?, extracted_text_length = ? WHERE id = ?")) {
+            while (true) {
+                select.setObject(1, lastId);
+                select.setInt(2, BATCH_SIZE);
+                int batch = 0;
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        lastId = rows.getObject("id", UUID.class);
+                        SpillingTextBuffer text = new SpillingTextBuffer(spillMemoryChars);
+                        try {
+                            // Hibernate wrote the text through the large object API; read it back the same way
+                            Clob clob = rows.getClob("extracted_text");
+                            try (Reader reader = clob.getCharacterStream()) {
+                                reader.transferTo(text);
+                            } finally {
+                                clob.free();
+                            }
+                            text.close();
+
+                            update.setString(1, documentsStorageService.storeExtractedText(rows.getString("file_path"), text));
+                            update.setLong(2, text.length());
+                            update.setObject(3, lastId);
+                            update.addBatch();
+                            batch++;
+                        } finally {
+                            text.discard();
+                        }
+                    }
+                }
+                if (batch == 0) {
+                    break;
+                }
+                update.executeBatch();
+                moved += batch;
+                log.info("Moved {} extracted texts to storage", moved);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public record BulkTagRequestDto(
+        Map<UUID, List<String>> tags
+) {}
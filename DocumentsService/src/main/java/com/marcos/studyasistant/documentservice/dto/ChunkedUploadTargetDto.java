@@ -0,0 +1,6 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+public record ChunkedUploadTargetDto(
+        String filePath,
+        String uploadId
+) {}
@@ -3,10 +3,19 @@ package com.marcos.studyasistant.documentservice.dto;
 import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
 import java.util.UUID;
 
+/**
+ * Describes the slice of a document's text a content request will stream: {@code length}
+ * characters starting at {@code offset}, already clipped to {@code textLength}.
+ */
 public record DocumentContentResponseDto(
         UUID id,
         String filename,
-        String extractedText,
-        ProcessingStatus status
+        ProcessingStatus status,
+        Long textLength,
+        long offset,
+        long length
 ) {
+    public boolean isAvailable() {
+        return textLength != null;
+    }
 }
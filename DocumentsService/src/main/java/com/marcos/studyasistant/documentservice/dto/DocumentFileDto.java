@@ -0,0 +1,12 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import java.util.UUID;
+
+public record DocumentFileDto(
+        UUID id,
+        String filename,
+        String mimeType,
+        long size,
+        String hash,
+        String filePath
+) {}
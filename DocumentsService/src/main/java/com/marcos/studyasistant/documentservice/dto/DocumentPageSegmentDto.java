@@ -0,0 +1,11 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.entity.enums.SegmentType;
+
+public record DocumentPageSegmentDto(
+        int number,
+        SegmentType type,
+        long startOffset,
+        long endOffset,
+        String content
+) {}
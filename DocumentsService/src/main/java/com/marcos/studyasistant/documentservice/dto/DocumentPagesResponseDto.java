@@ -0,0 +1,12 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record DocumentPagesResponseDto(
+        UUID documentId,
+        int from,
+        int to,
+        long totalSegments,
+        List<DocumentPageSegmentDto> pages
+) {}
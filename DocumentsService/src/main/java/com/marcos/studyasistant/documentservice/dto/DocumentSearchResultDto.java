@@ -0,0 +1,13 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.entity.enums.SegmentType;
+import java.util.UUID;
+
+public record DocumentSearchResultDto(
+        UUID documentId,
+        String originalFilename,
+        int segmentNumber,
+        SegmentType segmentType,
+        double rank,
+        String snippet
+) {}
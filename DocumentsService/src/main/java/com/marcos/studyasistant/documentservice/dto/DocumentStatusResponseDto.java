@@ -0,0 +1,12 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record DocumentStatusResponseDto(
+        UUID id,
+        ProcessingStatus status,
+        String processingError,
+        LocalDateTime processedAt
+) {}
@@ -0,0 +1,13 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import java.util.List;
+
+/**
+ * Extracted text plus the offset at which each page starts, when the parser marks pages.
+ * The caller owns the text buffer and must {@link SpillingTextBuffer#discard() discard} it.
+ */
+public record ExtractedTextDto(
+        SpillingTextBuffer text,
+        List<Long> pageOffsets
+) {}
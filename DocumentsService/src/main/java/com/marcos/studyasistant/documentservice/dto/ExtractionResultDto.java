@@ -0,0 +1,16 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import org.apache.tika.metadata.Metadata;
+import java.util.List;
+
+public record ExtractionResultDto(
+        // In memory for ordinary documents, spilled to a compressed temp file for huge ones
+        SpillingTextBuffer extractedText,
+        String contentHash,
+        Metadata metadata,
+        // Where each page starts in extractedText; empty for formats without pages
+        List<Long> pageOffsets,
+        // Empty unless the document was a large PDF extracted in parallel page ranges
+        List<PdfPageRangeResultDto> pageRanges
+) {}
@@ -3,6 +3,7 @@ package com.marcos.studyasistant.documentservice.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -11,6 +12,12 @@ public class LanguageDetectionResultDto {
     private String language;
     private double confidence;
     private String reason;
+    // Per-window breakdown when the text was sampled, empty otherwise
+    private List<LanguageWindowResultDto> windows = List.of();
+
+    public LanguageDetectionResultDto(String language, double confidence, String reason) {
+        this(language, confidence, reason, List.of());
+    }
 
     public static LanguageDetectionResultDto unknown(String reason) {
         return new LanguageDetectionResultDto("unknown", 0.0, reason);
@@ -0,0 +1,11 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+/**
+ * Language detected on one sampled window of a document, {@code [start, end)} in characters.
+ */
+public record LanguageWindowResultDto(
+        long start,
+        long end,
+        String language,
+        double confidence
+) {}
@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
 public class PageCountResultDto {
 
     private Integer pageCount;
-    private String method; // "exact" o "estimated"
+    private String method; // "exact", "metadata" o "estimated"
     private String fileType;
     private String details;
 
@@ -22,6 +22,10 @@ public class PageCountResultDto {
         return new PageCountResultDto(count, "estimated", fileType, details);
     }
 
+    public static PageCountResultDto fromMetadata(Integer count, String fileType, String property) {
+        return new PageCountResultDto(count, "metadata", fileType, "Read from " + property);
+    }
+
     public static PageCountResultDto unsupported(String fileType) {
         return new PageCountResultDto(null, "unsupported", fileType, "File type not supported for page counting");
     }
@@ -0,0 +1,11 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import java.util.List;
+
+public record PdfExtractionResultDto(
+        SpillingTextBuffer text,
+        int pageCount,
+        List<Long> pageOffsets,
+        List<PdfPageRangeResultDto> ranges
+) {}
@@ -0,0 +1,11 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+/**
+ * Text extracted from pages {@code startPage..endPage} (1-based, inclusive) of a PDF by one worker.
+ */
+public record PdfPageRangeResultDto(
+        int startPage,
+        int endPage,
+        int characters,
+        long durationMs
+) {}
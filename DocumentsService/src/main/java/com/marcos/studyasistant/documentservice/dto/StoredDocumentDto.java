@@ -0,0 +1,6 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+public record StoredDocumentDto(
+        String filePath,
+        String contentHash
+) {}
@@ -0,0 +1,10 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import java.util.UUID;
+
+public record UploadSessionRequestDto(
+        UUID userId,
+        String filename,
+        String mimeType,
+        Long fileSize
+) {}
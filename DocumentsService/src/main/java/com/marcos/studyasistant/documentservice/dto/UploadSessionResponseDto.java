@@ -0,0 +1,15 @@
+package com.marcos.studyasistant.documentservice.dto;
+
+import com.marcos.studyasistant.documentservice.entity.enums.UploadSessionStatus;
+import java.util.List;
+import java.util.UUID;
+
+public record UploadSessionResponseDto(
+        UUID id,
+        UUID userId,
+        String filename,
+        UploadSessionStatus status,
+        List<Integer> receivedChunks,
+        long receivedBytes,
+        UUID documentId
+) {}
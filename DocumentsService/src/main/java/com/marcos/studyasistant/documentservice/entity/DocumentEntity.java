@@ -14,7 +14,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents",
+        indexes = @Index(name = "idx_documents_user_status", columnList = "user_id, status"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_documents_user_hash", columnNames = {"user_id", "hash"}))
 @Getter @Setter @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,9 +46,12 @@ public class DocumentEntity {
     @Column(name = "status", length = 20)
     private ProcessingStatus status = ProcessingStatus.UPLOADED;
 
-    @Lob
-    @Column(name = "extracted_text")
-    private String extractedText;
+    // Extracted text lives gzip-compressed in object storage; the row only keeps a reference
+    @Column(name = "extracted_text_path", length = 500)
+    private String extractedTextPath;
+
+    @Column(name = "extracted_text_length")
+    private Long extractedTextLength;
 
     @Column(name = "page_count")
     private Integer pageCount;
@@ -58,7 +63,8 @@ public class DocumentEntity {
     @Column(name = "processing_error")
     private String processingError;
 
-    @Column(name = "hash", unique = true, length = 64)
+    // SHA-256 of the raw uploaded bytes; unique per user, shared across users via the extraction cache
+    @Column(name = "hash", length = 64)
     private String hash;
 
     @Column(name = "created_at")
@@ -0,0 +1,51 @@
+package com.marcos.studyasistant.documentservice.entity;
+
+import com.marcos.studyasistant.documentservice.entity.enums.SegmentType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import java.util.UUID;
+
+/**
+ * One page (or fixed-size section, for formats without pages) of a document's extracted text.
+ * Offsets are character positions in the full text, so segments can be stitched back or
+ * addressed individually.
+ */
+@Entity
+@Table(name = "document_page_segments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_page_segments_document_number",
+                columnNames = {"document_id", "segment_number"}))
+@Getter @Setter @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentPageSegment {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", nullable = false)
+    private DocumentEntity document;
+
+    // Owner of the document, copied here so search can narrow to one user inside its index
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    // 1-based page or section number
+    @Column(name = "segment_number", nullable = false)
+    private Integer segmentNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "segment_type", nullable = false, length = 10)
+    private SegmentType segmentType;
+
+    @Column(name = "start_offset", nullable = false)
+    private Long startOffset;
+
+    @Column(name = "end_offset", nullable = false)
+    private Long endOffset;
+
+    @Column(name = "content", nullable = false, columnDefinition = "text")
+    private String content;
+}
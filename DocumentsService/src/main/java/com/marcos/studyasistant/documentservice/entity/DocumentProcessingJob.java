@@ -0,0 +1,64 @@
+package com.marcos.studyasistant.documentservice.entity;
+
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "document_processing_jobs",
+        indexes = {
+                @Index(name = "idx_processing_jobs_status_created", columnList = "status, created_at"),
+                @Index(name = "idx_processing_jobs_status_lease", columnList = "status, lease_expires_at")
+        })
+@Getter @Setter @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class DocumentProcessingJob {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "document_id", nullable = false, unique = true)
+    private UUID documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ProcessingJobStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @Column(name = "created_at")
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Instance running the job; its claim lapses at lease_expires_at unless renewed
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    // UTC, from the database clock (see DocumentProcessingJobRepository)
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+}
@@ -43,6 +43,9 @@ public class DocumentProcessingLog {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Buffered logs are stamped when the step happens, not when the batch is written
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
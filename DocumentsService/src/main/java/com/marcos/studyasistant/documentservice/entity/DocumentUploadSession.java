@@ -0,0 +1,69 @@
+package com.marcos.studyasistant.documentservice.entity;
+
+import com.marcos.studyasistant.documentservice.entity.enums.UploadSessionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "document_upload_sessions",
+        indexes = @Index(name = "idx_upload_sessions_status_updated", columnList = "status, updated_at"))
+@Getter @Setter @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class DocumentUploadSession {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "original_filename", nullable = false, length = 255)
+    private String originalFilename;
+
+    @Column(name = "mime_type", nullable = false, length = 100)
+    private String mimeType;
+
+    // Size announced by the client, used only as a sanity check on finalize
+    @Column(name = "expected_size")
+    private Long expectedSize;
+
+    @Column(name = "file_path", nullable = false, length = 500)
+    private String filePath;
+
+    // MinIO multipart upload id; the received chunks live there as parts
+    @Column(name = "upload_id", nullable = false, length = 255)
+    private String uploadId;
+
+    // Highest chunk number received so far
+    @Column(name = "highest_chunk_number")
+    private Integer highestChunkNumber;
+
+    // Set by the first chunk below the storage's minimum part size, which can only be the last one
+    @Column(name = "last_chunk_number")
+    private Integer lastChunkNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private UploadSessionStatus status;
+
+    @Column(name = "document_id")
+    private UUID documentId;
+
+    @Column(name = "created_at")
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
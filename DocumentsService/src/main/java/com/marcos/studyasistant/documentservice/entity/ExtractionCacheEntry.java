@@ -0,0 +1,62 @@
+package com.marcos.studyasistant.documentservice.entity;
+
+import com.vladmihalcea.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Type;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What processing learnt from one exact file, keyed by the SHA-256 of its raw bytes, so another
+ * upload of the same file can skip extraction. The text itself is a gzip object in the storage.
+ */
+@Entity
+@Table(name = "extraction_cache",
+        indexes = @Index(name = "idx_extraction_cache_last_used", columnList = "last_used_at"))
+@Getter @Setter @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionCacheEntry {
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "text_path", nullable = false, length = 500)
+    private String textPath;
+
+    @Column(name = "text_length", nullable = false)
+    private Long textLength;
+
+    // Start of every page in the text; empty for formats without pages
+    @Type(JsonType.class)
+    @Column(name = "page_offsets", columnDefinition = "jsonb")
+    private List<Long> pageOffsets;
+
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    @Column(name = "language_detected", length = 10)
+    private String languageDetected;
+
+    @Type(JsonType.class)
+    @Column(name = "tags", columnDefinition = "jsonb")
+    private Map<String, BigDecimal> tags;
+
+    @Column(name = "hit_count", nullable = false)
+    private long hitCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        lastUsedAt = createdAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.marcos.studyasistant.documentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import java.util.UUID;
+
+/**
+ * Number of document_tags rows carrying a tag, kept up to date as tags are added and removed.
+ */
+@Entity
+@Table(name = "tag_counts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_tag_counts_tag", columnNames = "tag"),
+        indexes = @Index(name = "idx_tag_counts_usage", columnList = "usage_count"))
+@Getter @Setter @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagCount {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "tag", nullable = false, length = 100)
+    private String tag;
+
+    @Column(name = "usage_count", nullable = false)
+    private long usageCount;
+}
@@ -0,0 +1,32 @@
+package com.marcos.studyasistant.documentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import java.util.UUID;
+
+/**
+ * Number of tags with a given name on one user's documents.
+ */
+@Entity
+@Table(name = "user_tag_counts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_tag_counts_user_tag", columnNames = {"user_id", "tag"}),
+        indexes = @Index(name = "idx_user_tag_counts_user_usage", columnList = "user_id, usage_count"))
+@Getter @Setter @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTagCount {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "tag", nullable = false, length = 100)
+    private String tag;
+
+    @Column(name = "usage_count", nullable = false)
+    private long usageCount;
+}
@@ -0,0 +1,5 @@
+package com.marcos.studyasistant.documentservice.entity.enums;
+
+public enum UploadSessionStatus {
+    ACTIVE, FINALIZING, COMPLETED, ABORTED
+}
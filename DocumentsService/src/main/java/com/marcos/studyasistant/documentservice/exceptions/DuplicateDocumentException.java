@@ -0,0 +1,11 @@
+package com.marcos.studyasistant.documentservice.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateDocumentException extends RuntimeException {
+    public DuplicateDocumentException(String message) {
+        super(message);
+    }
+}
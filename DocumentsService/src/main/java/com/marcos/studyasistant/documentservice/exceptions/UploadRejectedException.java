@@ -0,0 +1,18 @@
+package com.marcos.studyasistant.documentservice.exceptions;
+
+import lombok.Getter;
+
+/**
+ * The service is too busy to take a new upload right now; the client should retry after
+ * {@link #getRetryAfterSeconds()} seconds.
+ */
+@Getter
+public class UploadRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public UploadRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,48 @@
+package com.marcos.studyasistant.documentservice.reposiroty;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentPageSegment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DocumentPageSegmentRepository extends JpaRepository<DocumentPageSegment, UUID> {
+
+    List<DocumentPageSegment> findByDocumentIdAndSegmentNumberBetweenOrderBySegmentNumberAsc(UUID documentId, int from, int to);
+
+    List<DocumentPageSegment> findByDocumentIdOrderBySegmentNumberAsc(UUID documentId);
+
+    long countByDocumentId(UUID documentId);
+
+    @Query("SELECT s FROM DocumentPageSegment s WHERE s.document.id = :documentId " +
+            "AND s.endOffset > :fromOffset AND s.startOffset < :toOffset ORDER BY s.segmentNumber")
+    Slice<DocumentPageSegment> findOverlapping(@Param("documentId") UUID documentId,
+                                               @Param("fromOffset") long fromOffset,
+                                               @Param("toOffset") long toOffset,
+                                               Pageable pageable);
+
+    // search_config and search_vector are not mapped; migration V13 adds them
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE document_page_segments SET search_config = :config, " +
+            "search_vector = to_tsvector(CAST(:config AS regconfig), content) WHERE document_id = :documentId",
+            nativeQuery = true)
+    int indexForSearch(@Param("documentId") UUID documentId, @Param("config") String config);
+
+    @Query(value = "SELECT DISTINCT s.document_id FROM document_page_segments s " +
+            "JOIN documents d ON d.id = s.document_id " +
+            "WHERE s.search_vector IS NULL AND d.status = 'COMPLETED' LIMIT :limit", nativeQuery = true)
+    List<UUID> findUnindexedDocumentIds(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentPageSegment s WHERE s.document.id = :documentId")
+    int deleteByDocumentId(@Param("documentId") UUID documentId);
+}
@@ -0,0 +1,109 @@
+package com.marcos.studyasistant.documentservice.reposiroty;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentProcessingJob;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DocumentProcessingJobRepository extends JpaRepository<DocumentProcessingJob, UUID> {
+
+    @Query("SELECT j FROM DocumentProcessingJob j WHERE j.status = :status ORDER BY j.createdAt ASC")
+    List<DocumentProcessingJob> findByStatusOrderByCreatedAtAsc(@Param("status") ProcessingJobStatus status,
+                                                                Pageable pageable);
+
+    @Query("SELECT COUNT(j) FROM DocumentProcessingJob j WHERE j.status = :status")
+    long countByStatus(@Param("status") ProcessingJobStatus status);
+
+    /**
+     * Locks the oldest queued jobs for the current transaction. Rows already locked by another
+     * instance are skipped instead of waited for, so replicas never claim the same job.
+     */
+    @Query(value = "SELECT id FROM document_processing_jobs WHERE status = 'QUEUED' " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> lockQueued(@Param("limit") int limit);
+
+    // Lease expiries are set and compared with the database clock, in UTC, never with an
+    // instance's own clock, so clock or time zone differences between replicas do not matter
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE document_processing_jobs SET status = 'RUNNING', attempts = attempts + 1, " +
+            "started_at = :now, updated_at = :now, lease_owner = :owner, " +
+            "lease_expires_at = (now() AT TIME ZONE 'UTC') + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (:ids) AND status = 'QUEUED'", nativeQuery = true)
+    int claim(@Param("ids") Collection<UUID> ids,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("leaseSeconds") double leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE document_processing_jobs " +
+            "SET lease_expires_at = (now() AT TIME ZONE 'UTC') + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (:ids) AND lease_owner = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int renewLeases(@Param("ids") Collection<UUID> ids,
+                    @Param("owner") String owner,
+                    @Param("leaseSeconds") double leaseSeconds);
+
+    // A lease that was lost (and the job handed to another instance) does not finish the job
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentProcessingJob j SET j.status = :status, j.lastError = :error, " +
+            "j.finishedAt = :now, j.updatedAt = :now, j.leaseOwner = NULL, j.leaseExpiresAt = NULL " +
+            "WHERE j.id = :id AND j.leaseOwner = :owner")
+    int finish(@Param("id") UUID id,
+               @Param("owner") String owner,
+               @Param("status") ProcessingJobStatus status,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentProcessingJob j SET j.status = 'QUEUED', j.attempts = j.attempts - 1, j.updatedAt = :now, " +
+            "j.leaseOwner = NULL, j.leaseExpiresAt = NULL WHERE j.id = :id AND j.leaseOwner = :owner")
+    int release(@Param("id") UUID id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT * FROM document_processing_jobs WHERE status = 'RUNNING' " +
+            "AND lease_expires_at < (now() AT TIME ZONE 'UTC') ORDER BY lease_expires_at LIMIT :limit",
+            nativeQuery = true)
+    List<DocumentProcessingJob> findExpiredLeases(@Param("limit") int limit);
+
+    // Both are conditional on the lease still being expired, so concurrent sweepers act on a job only once
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE document_processing_jobs SET status = 'QUEUED', updated_at = :now, " +
+            "lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id = :id AND status = 'RUNNING' AND lease_expires_at < (now() AT TIME ZONE 'UTC')",
+            nativeQuery = true)
+    int requeueExpired(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE document_processing_jobs SET status = 'FAILED', last_error = :error, finished_at = :now, " +
+            "updated_at = :now, lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id = :id AND status = 'RUNNING' AND lease_expires_at < (now() AT TIME ZONE 'UTC')",
+            nativeQuery = true)
+    int failExpired(@Param("id") UUID id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentProcessingJob j SET j.status = 'QUEUED', j.attempts = 0, j.lastError = NULL, " +
+            "j.finishedAt = NULL, j.updatedAt = :now WHERE j.documentId = :documentId AND j.status IN ('COMPLETED', 'FAILED')")
+    int requeueFinished(@Param("documentId") UUID documentId, @Param("now") LocalDateTime now);
+
+    boolean existsByDocumentId(UUID documentId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentProcessingJob j WHERE j.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") UUID documentId);
+}
@@ -1,11 +1,12 @@
 package com.marcos.studyasistant.documentservice.reposiroty;
 
 import com.marcos.studyasistant.documentservice.entity.DocumentTag;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,8 +15,23 @@ public interface DocumentTagRepository extends JpaRepository<DocumentTag, UUID>
 
     List<DocumentTag> findByDocumentIdOrderByConfidenceScoreDesc(UUID documentId);
 
-    @Query("SELECT dt.tag, COUNT(dt) FROM DocumentTag dt GROUP BY dt.tag ORDER BY COUNT(dt) DESC")
-    List<Object[]> findMostUsedTags(Pageable pageable);
+    @Query("SELECT dt.tag, COUNT(dt) FROM DocumentTag dt WHERE dt.document.id = :documentId GROUP BY dt.tag")
+    List<Object[]> countTagsByDocumentId(@Param("documentId") UUID documentId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentTag dt WHERE dt.document.id = :documentId")
+    int deleteByDocumentId(@Param("documentId") UUID documentId);
+
+    // Auto-tagging always scores its tags; tags added by hand carry no confidence
+    @Query("SELECT dt.tag, COUNT(dt) FROM DocumentTag dt " +
+            "WHERE dt.document.id = :documentId AND dt.confidenceScore IS NOT NULL GROUP BY dt.tag")
+    List<Object[]> countAutoGeneratedTagsByDocumentId(@Param("documentId") UUID documentId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DocumentTag dt WHERE dt.document.id = :documentId AND dt.confidenceScore IS NOT NULL")
+    int deleteAutoGeneratedByDocumentId(@Param("documentId") UUID documentId);
 
     @Query("SELECT dt FROM DocumentTag dt WHERE dt.document.userId = :userId AND dt.tag = :tag")
     List<DocumentTag> findByUserIdAndTag(@Param("userId") UUID userId, @Param("tag") String tag);
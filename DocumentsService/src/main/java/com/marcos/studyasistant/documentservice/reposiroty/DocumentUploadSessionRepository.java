@@ -0,0 +1,62 @@
+package com.marcos.studyasistant.documentservice.reposiroty;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentUploadSession;
+import com.marcos.studyasistant.documentservice.entity.enums.UploadSessionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DocumentUploadSessionRepository extends JpaRepository<DocumentUploadSession, UUID> {
+
+    // Fails (0 rows) for a chunk numbered past the short chunk that was already taken as the last one
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentUploadSession s SET s.highestChunkNumber = " +
+            "CASE WHEN s.highestChunkNumber IS NULL OR s.highestChunkNumber < :chunkNumber " +
+            "THEN :chunkNumber ELSE s.highestChunkNumber END, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.status = 'ACTIVE' " +
+            "AND (s.lastChunkNumber IS NULL OR s.lastChunkNumber >= :chunkNumber)")
+    int recordChunk(@Param("id") UUID id, @Param("chunkNumber") int chunkNumber, @Param("now") LocalDateTime now);
+
+    // Fails (0 rows) when another chunk is already the last one, or a later chunk was received
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentUploadSession s SET s.lastChunkNumber = :chunkNumber, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.status = 'ACTIVE' " +
+            "AND (s.lastChunkNumber IS NULL OR s.lastChunkNumber = :chunkNumber) " +
+            "AND (s.highestChunkNumber IS NULL OR s.highestChunkNumber <= :chunkNumber)")
+    int markLastChunk(@Param("id") UUID id, @Param("chunkNumber") int chunkNumber, @Param("now") LocalDateTime now);
+
+    // Only one caller moves a session out of a status, so two finalizes or a finalize and the
+    // sweeper never act on the same session
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentUploadSession s SET s.status = :to, s.updatedAt = :now WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") UUID id,
+                   @Param("from") UploadSessionStatus from,
+                   @Param("to") UploadSessionStatus to,
+                   @Param("now") LocalDateTime now);
+
+    @Query("SELECT s FROM DocumentUploadSession s WHERE s.status IN :statuses AND s.updatedAt < :cutoff ORDER BY s.updatedAt")
+    List<DocumentUploadSession> findStale(@Param("statuses") Collection<UploadSessionStatus> statuses,
+                                          @Param("cutoff") LocalDateTime cutoff,
+                                          Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentUploadSession s SET s.status = 'ABORTED', s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.status IN :statuses AND s.updatedAt < :cutoff")
+    int expire(@Param("id") UUID id,
+               @Param("statuses") Collection<UploadSessionStatus> statuses,
+               @Param("cutoff") LocalDateTime cutoff,
+               @Param("now") LocalDateTime now);
+}
@@ -1,15 +1,20 @@
 package com.marcos.studyasistant.documentservice.reposiroty;
 
+import com.marcos.studyasistant.documentservice.dto.DocumentStatusResponseDto;
 import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
 import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -24,7 +29,41 @@ public interface DocumentsRepository extends JpaRepository<DocumentEntity, UUID>
     @Query("SELECT COUNT(d) FROM DocumentEntity d WHERE d.userId = :userId AND d.status = :status")
     Long countByUserIdAndStatus(@Param("userId") UUID userId, @Param("status") ProcessingStatus status);
 
+    @Query("SELECT COUNT(d) FROM DocumentEntity d WHERE d.userId = :userId AND d.status IN :statuses")
+    long countByUserIdAndStatusIn(@Param("userId") UUID userId, @Param("statuses") Collection<ProcessingStatus> statuses);
+
+    @Query("SELECT new com.marcos.studyasistant.documentservice.dto.DocumentStatusResponseDto(" +
+            "d.id, d.status, d.processingError, d.processedAt) FROM DocumentEntity d WHERE d.id = :id")
+    Optional<DocumentStatusResponseDto> findStatusById(@Param("id") UUID id);
+
+    /**
+     * Documents still waiting to be processed that no queued or running job will ever pick up,
+     * e.g. because the instance died between saving the document and queuing it.
+     */
+    @Query("SELECT d.id FROM DocumentEntity d WHERE d.status IN :statuses AND d.updatedAt < :cutoff " +
+            "AND NOT EXISTS (SELECT j.id FROM DocumentProcessingJob j WHERE j.documentId = d.id " +
+            "AND j.status IN (com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus.QUEUED, " +
+            "com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus.RUNNING))")
+    List<UUID> findOrphanedIds(@Param("statuses") Collection<ProcessingStatus> statuses,
+                               @Param("cutoff") LocalDateTime cutoff,
+                               Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DocumentEntity d SET d.status = :status, d.processingError = :error, d.updatedAt = :now WHERE d.id = :id")
+    int updateStatus(@Param("id") UUID id,
+                     @Param("status") ProcessingStatus status,
+                     @Param("error") String error,
+                     @Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(d) > 0 FROM DocumentEntity d WHERE d.userId = :userId AND d.hash = :hash")
+    boolean existsByUserIdAndHash(@Param("userId") UUID userId, @Param("hash") String hash);
+
     @Query("SELECT d FROM DocumentEntity d WHERE d.createdAt BETWEEN :startDate AND :endDate")
     List<DocumentEntity> findByCreatedAtBetween(@Param("startDate") LocalDateTime startDate,
                                                 @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT DISTINCT d.languageDetected FROM DocumentEntity d " +
+            "WHERE d.userId = :userId AND d.status = :status AND d.languageDetected IS NOT NULL")
+    List<String> findDetectedLanguages(@Param("userId") UUID userId, @Param("status") ProcessingStatus status);
 }
@@ -0,0 +1,24 @@
+package com.marcos.studyasistant.documentservice.reposiroty;
+
+import com.marcos.studyasistant.documentservice.entity.ExtractionCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ExtractionCacheRepository extends JpaRepository<ExtractionCacheEntry, String> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExtractionCacheEntry e SET e.hitCount = e.hitCount + 1, e.lastUsedAt = :now WHERE e.contentHash = :contentHash")
+    int recordHit(@Param("contentHash") String contentHash, @Param("now") LocalDateTime now);
+
+    @Query("SELECT e FROM ExtractionCacheEntry e WHERE e.lastUsedAt < :cutoff ORDER BY e.lastUsedAt")
+    List<ExtractionCacheEntry> findUnusedSince(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package com.marcos.studyasistant.documentservice.reposiroty;
+
+import com.marcos.studyasistant.documentservice.entity.TagCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TagCountRepository extends JpaRepository<TagCount, UUID> {
+
+    @Query("SELECT c.tag FROM TagCount c WHERE c.usageCount > 0 ORDER BY c.usageCount DESC, c.tag")
+    List<String> findTopTags(Pageable pageable);
+}
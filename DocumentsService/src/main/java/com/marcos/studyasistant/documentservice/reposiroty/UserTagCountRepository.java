@@ -0,0 +1,18 @@
+package com.marcos.studyasistant.documentservice.reposiroty;
+
+import com.marcos.studyasistant.documentservice.entity.UserTagCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UserTagCountRepository extends JpaRepository<UserTagCount, UUID> {
+
+    @Query("SELECT c.tag FROM UserTagCount c WHERE c.userId = :userId AND c.usageCount > 0 " +
+            "ORDER BY c.usageCount DESC, c.tag")
+    List<String> findTopTags(@Param("userId") UUID userId, Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface AutoTaggingService {
+
+    /**
+     * Suggests tags for the extracted text of a document, with a confidence between 0 and 1.
+     * The text is read once as a stream and not closed.
+     */
+    Map<String, BigDecimal> generateTags(Reader text, String mimeType) throws IOException;
+}
@@ -4,5 +4,5 @@ import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
 
 public interface DocumentEventPublisher {
     
-    void publishDocumentProcessingCompleted(DocumentEntity document);
+    void publishDocumentProcessingCompleted(DocumentEntity document, String extractedText);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import java.util.UUID;
+
+public interface DocumentProcessingQueueService {
+
+    /**
+     * Adds a document to the durable processing queue. The document is picked up
+     * by the worker pool; this call never runs the processing itself.
+     *
+     * @param documentId the UUID of the document to be processed
+     */
+    void enqueue(UUID documentId);
+
+    /**
+     * Removes a document's job, whatever its state. A worker still running it can no longer
+     * finish or re-queue it, and the sweeper will not bring it back.
+     *
+     * @param documentId the UUID of the document being deleted
+     */
+    void dequeue(UUID documentId);
+
+    /**
+     * Returns the number of jobs waiting for a worker.
+     *
+     * @return the number of queued jobs
+     */
+    long getQueueDepth();
+
+    /**
+     * Returns how long a processing job has recently taken on this instance, as an exponentially
+     * weighted moving average.
+     *
+     * @return the average in milliseconds, or 0 before the first job has finished
+     */
+    long getAverageProcessingTimeMs();
+}
@@ -0,0 +1,29 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import com.marcos.studyasistant.documentservice.dto.DocumentSearchResultDto;
+import java.util.List;
+import java.util.UUID;
+
+public interface DocumentSearchService {
+
+    /**
+     * Builds the full-text index of a document's segments, stemming them for its language.
+     * Runs again whenever the segments or the language change.
+     *
+     * @param documentId       the document whose segments are indexed
+     * @param detectedLanguage the ISO 639-1 code detected for the document, or {@code unknown}
+     * @return the number of indexed segments
+     */
+    int indexDocument(UUID documentId, String detectedLanguage);
+
+    /**
+     * Searches the pages of a user's documents. The query accepts web search syntax: quoted
+     * phrases, {@code or} and {@code -excluded} words.
+     *
+     * @param userId the owner of the documents to search
+     * @param query  the words to look for
+     * @param limit  the maximum number of pages to return
+     * @return the best matching pages, best first, each with a highlighted snippet
+     */
+    List<DocumentSearchResultDto> search(UUID userId, String query, int limit);
+}
@@ -0,0 +1,40 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import com.marcos.studyasistant.documentservice.dto.DocumentPagesResponseDto;
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.UUID;
+
+public interface DocumentSegmentService {
+
+    /**
+     * Splits the extracted text into ordered segments and stores them, replacing any segments
+     * left by a previous run. With page offsets there is one segment per page; otherwise the
+     * text is cut into sections of roughly the configured size. The text is read once, front to
+     * back, and the segments are saved in batches as they are cut.
+     *
+     * @param document    the processed document
+     * @param text        the full extracted text
+     * @param pageOffsets where each page starts in the text, empty when the format has no pages
+     * @return the number of stored segments
+     */
+    int storeSegments(DocumentEntity document, SpillingTextBuffer text, List<Long> pageOffsets) throws IOException;
+
+    /**
+     * Retrieves segments {@code from..to} (1-based, inclusive) of a document.
+     */
+    DocumentPagesResponseDto getPages(UUID documentId, int from, Integer to);
+
+    /**
+     * Writes characters {@code [offset, offset + length)} of the document's text, loading a few
+     * segments at a time so memory does not grow with the size of the document.
+     *
+     * @return {@code false} when the document has no segments (processed before they existed)
+     */
+    boolean writeText(UUID documentId, long offset, long length, Writer writer) throws IOException;
+
+    void deleteSegments(UUID documentId);
+}
@@ -37,6 +37,15 @@ public interface DocumentTagService {
      */
     List<DocumentTag> addAutoGeneratedTags(DocumentEntity document, Map<String, BigDecimal> tagsWithConfidence);
 
+    /**
+     * Adds tags to many documents at once. All tags are written in batched inserts
+     * rather than one statement per tag.
+     *
+     * @param tagsByDocument the tags to add, keyed by document UUID
+     * @return a list of created DocumentTag entities
+     */
+    List<DocumentTag> addTagsToDocuments(Map<UUID, List<String>> tagsByDocument);
+
     /**
      * Retrieves all tags associated with a document.
      *
@@ -53,6 +62,32 @@ public interface DocumentTagService {
      */
     List<String> getMostUsedTags(int limit);
 
+    /**
+     * Retrieves the most used tags on a user's documents.
+     *
+     * @param userId the UUID of the user
+     * @param limit the maximum number of tags to retrieve
+     * @return a list of the user's most used tags
+     */
+    List<String> getMostUsedTags(UUID userId, int limit);
+
+    /**
+     * Removes every tag of a document, keeping the tag statistics in step.
+     *
+     * @param document the document whose tags are removed
+     * @return the number of removed tags
+     */
+    int deleteDocumentTags(DocumentEntity document);
+
+    /**
+     * Removes the tags auto-tagging gave a document, leaving the ones added by hand, so that
+     * processing it again does not add them twice.
+     *
+     * @param document the document whose generated tags are removed
+     * @return the number of removed tags
+     */
+    int deleteAutoGeneratedTags(DocumentEntity document);
+
     /**
      * Retrieves documents for a user filtered by a specific tag.
      *
@@ -0,0 +1,50 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionRequestDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionResponseDto;
+import java.util.UUID;
+
+public interface DocumentUploadSessionService {
+
+    /**
+     * Starts a resumable upload. Chunks are staged in storage; no document exists until
+     * the session is finalized.
+     *
+     * @param request the owner, name, type and announced size of the file
+     * @return the new upload session
+     */
+    UploadSessionResponseDto initiate(UploadSessionRequestDto request);
+
+    /**
+     * Stores one numbered chunk of the file. Re-sending a chunk replaces the previous copy.
+     *
+     * @param sessionId the UUID of the upload session
+     * @param chunkNumber the 1-based chunk number
+     * @param data the chunk content
+     */
+    void uploadChunk(UUID sessionId, int chunkNumber, byte[] data);
+
+    /**
+     * Retrieves an upload session, including the chunks received so far.
+     *
+     * @param sessionId the UUID of the upload session
+     * @return the upload session and its received chunks
+     */
+    UploadSessionResponseDto getSession(UUID sessionId);
+
+    /**
+     * Assembles the received chunks, creates the document and queues it for processing.
+     *
+     * @param sessionId the UUID of the upload session
+     * @return the response containing details of the created document
+     */
+    DocumentResponseDto finalizeUpload(UUID sessionId);
+
+    /**
+     * Cancels an upload session and discards its chunks.
+     *
+     * @param sessionId the UUID of the upload session
+     */
+    void abort(UUID sessionId);
+}
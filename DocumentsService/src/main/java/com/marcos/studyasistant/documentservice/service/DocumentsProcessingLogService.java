@@ -9,7 +9,8 @@ import java.util.UUID;
 public interface DocumentsProcessingLogService {
 
     /**
-     * Logs a processing step for a document.
+     * Logs a processing step for a document. The record is buffered and written in a
+     * later batch; call {@link #flush()} when it must be persisted right away.
      *
      * @param document        the document being processed
      * @param processingStep  the name of the processing step
@@ -37,6 +38,11 @@ public interface DocumentsProcessingLogService {
                                             Map<String, Object> details,
                                             Long processingTimeMs);
 
+    /**
+     * Writes every buffered log record to the database before returning.
+     */
+    void flush();
+
     /**
      * Retrieves the processing history for a specific document.
      *
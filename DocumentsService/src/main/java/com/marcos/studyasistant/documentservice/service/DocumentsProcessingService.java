@@ -6,10 +6,11 @@ import java.util.concurrent.CompletableFuture;
 public interface DocumentsProcessingService {
 
     /**
-     * Processes a document asynchronously.
+     * Processes a document. Callers run it on a worker thread (see {@link DocumentProcessingQueueService}).
      *
      * @param documentId the UUID of the document to be processed
-     * @return a CompletableFuture that will complete when the processing is done
+     * @return a CompletableFuture that completes when the processing is done,
+     *         or completes exceptionally when the document ended up FAILED
      */
     CompletableFuture<Void> processDocument(UUID documentId);
 
@@ -1,15 +1,23 @@
 package com.marcos.studyasistant.documentservice.service;
 
 import com.marcos.studyasistant.documentservice.dto.DocumentContentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentFileDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentPagesResponseDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentStatusResponseDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentUploadRequestDto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
 import java.util.UUID;
 
 public interface DocumentsService {
 
     /**
-     * Uploads a document and returns the response containing document details.
+     * Uploads a document and queues it for processing. Returns as soon as the file is
+     * stored; extraction happens later on the processing workers.
      *
      * @param documentUploadRequestDto the request containing the document to be uploaded
      * @return the response containing details of the uploaded document
@@ -25,12 +33,61 @@ public interface DocumentsService {
     DocumentResponseDto getDocumentById(UUID id);
 
     /**
-     * Retrieves the content of a document by its ID.
+     * Retrieves the processing status of a document without loading its content.
      *
      * @param id the UUID of the document
-     * @return the content of the document as a String
+     * @return the current processing status of the document
      */
-    DocumentContentResponseDto getDocumentContent(UUID id);
+    DocumentStatusResponseDto getDocumentStatus(UUID id);
+
+    /**
+     * Resolves which part of a document's text a content request covers, without loading it.
+     *
+     * @param id     the UUID of the document
+     * @param offset the first character to return
+     * @param length the number of characters to return; {@code null} for the rest of the text
+     * @return the resolved slice, clipped to the length of the text
+     */
+    DocumentContentResponseDto getDocumentContent(UUID id, long offset, Long length);
+
+    /**
+     * Streams the slice resolved by {@link #getDocumentContent} to the writer. Memory use is
+     * bounded by a few page segments or one copy buffer, whatever the size of the document.
+     *
+     * @param content the slice to write
+     * @param writer  the destination; it is flushed but not closed
+     */
+    void writeDocumentContent(DocumentContentResponseDto content, Writer writer) throws IOException;
+
+    /**
+     * Retrieves what is needed to serve the original file of a document, without opening it.
+     *
+     * @param id the UUID of the document
+     * @return name, type, size, content hash and storage path of the original upload
+     */
+    DocumentFileDto getDocumentFile(UUID id);
+
+    /**
+     * Opens {@code length} bytes of the original file starting at {@code offset}, streamed from
+     * the storage as they are read.
+     */
+    InputStream openDocumentFile(DocumentFileDto file, long offset, long length);
+
+    /**
+     * Creates a short-lived URL from which the client can download the original file directly.
+     */
+    URI getDocumentFileUrl(DocumentFileDto file);
+
+    /**
+     * Retrieves a slice of the document's text, page by page (or section by section for
+     * formats without pages).
+     *
+     * @param id   the UUID of the document
+     * @param from the first page, 1-based
+     * @param to   the last page, inclusive; {@code null} for a single page
+     * @return the requested pages in order
+     */
+    DocumentPagesResponseDto getDocumentPages(UUID id, int from, Integer to);
 
     /**
      * Deletes a document by its ID.
@@ -1,17 +1,65 @@
 package com.marcos.studyasistant.documentservice.service;
 
+import com.marcos.studyasistant.documentservice.dto.ChunkedUploadTargetDto;
+import com.marcos.studyasistant.documentservice.dto.StoredDocumentDto;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.InputStream;
+import java.util.SortedMap;
 
 public interface DocumentsStorageService {
 
     /**
-     * Uploads a document to the storage.
+     * Uploads a document to the storage, fingerprinting its bytes while they are written.
      *
      * @param file the document file to upload
-     * @return the filename of the uploaded document
+     * @return the stored object name and the SHA-256 hash of the uploaded content
      */
-    String uploadDocument(MultipartFile file) throws Exception;
+    StoredDocumentDto uploadDocument(MultipartFile file) throws Exception;
+
+    /**
+     * Starts a resumable upload whose chunks are staged as multipart parts in the storage.
+     *
+     * @param originalFilename the name of the file being uploaded
+     * @param contentType the MIME type of the file
+     * @return the object name the file will be stored under and the storage upload id
+     */
+    ChunkedUploadTargetDto initiateChunkedUpload(String originalFilename, String contentType) throws Exception;
+
+    /**
+     * Stores one chunk of a resumable upload. Re-sending a chunk number replaces it.
+     *
+     * @param filename the object name returned by {@link #initiateChunkedUpload}
+     * @param uploadId the storage upload id
+     * @param chunkNumber the 1-based chunk number
+     * @param data the chunk content
+     */
+    void uploadChunk(String filename, String uploadId, int chunkNumber, byte[] data) throws Exception;
+
+    /**
+     * Lists the chunks the storage has received for a resumable upload.
+     *
+     * @param filename the object name of the upload
+     * @param uploadId the storage upload id
+     * @return the received chunk numbers, in order, mapped to their size in bytes
+     */
+    SortedMap<Integer, Long> listUploadedChunks(String filename, String uploadId) throws Exception;
+
+    /**
+     * Assembles the received chunks into the final object.
+     *
+     * @param filename the object name of the upload
+     * @param uploadId the storage upload id
+     */
+    void completeChunkedUpload(String filename, String uploadId) throws Exception;
+
+    /**
+     * Discards a resumable upload and every chunk received for it.
+     *
+     * @param filename the object name of the upload
+     * @param uploadId the storage upload id
+     */
+    void abortChunkedUpload(String filename, String uploadId) throws Exception;
 
     /**
      * Downloads a document from the storage.
@@ -21,6 +69,55 @@ public interface DocumentsStorageService {
      */
     InputStream downloadDocument(String filename) throws Exception;
 
+    /**
+     * Downloads {@code length} bytes of a document starting at {@code offset}. Only that range
+     * is requested from the storage.
+     *
+     * @param filename the name of the document file to download
+     * @param offset   the first byte to read
+     * @param length   the number of bytes to read
+     * @return an InputStream over the requested range
+     */
+    InputStream downloadDocumentRange(String filename, long offset, long length) throws Exception;
+
+    /**
+     * Creates a time-limited URL from which clients can download the document straight from
+     * the storage.
+     *
+     * @param filename    the name of the document file
+     * @param downloadAs  the file name the browser should save it as
+     * @return the pre-signed GET URL
+     */
+    String getPresignedDownloadUrl(String filename, String downloadAs) throws Exception;
+
+    /**
+     * Stores the text extracted from a document as a gzip-compressed object next to the original.
+     * Text that has spilled to disk is uploaded from its temp file without being read back.
+     *
+     * @param filename the object name of the original document
+     * @param text the extracted text
+     * @return the object name of the stored text
+     */
+    String storeExtractedText(String filename, SpillingTextBuffer text) throws Exception;
+
+    /**
+     * Stores a copy of already extracted text as the text of another object. The copy is made
+     * inside the storage; the text is not downloaded.
+     *
+     * @param textPath the object name of the text to copy
+     * @param filename the object name the copy belongs to
+     * @return the object name of the copy
+     */
+    String copyExtractedText(String textPath, String filename) throws Exception;
+
+    /**
+     * Opens the extracted text of a document, decompressing it on the fly.
+     *
+     * @param textPath the object name returned by {@link #storeExtractedText}
+     * @return an InputStream with the UTF-8 encoded text
+     */
+    InputStream downloadExtractedText(String textPath) throws Exception;
+
     /**
      * Deletes a document from the storage.
      *
@@ -0,0 +1,42 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.ExtractionCacheEntry;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ExtractionCacheService {
+
+    /**
+     * Looks up the processing result of a file with these exact bytes. A found entry is counted
+     * as a hit.
+     *
+     * @param contentHash the SHA-256 of the raw file
+     * @return the cached result, empty on a miss or when the cache is disabled
+     */
+    Optional<ExtractionCacheEntry> find(String contentHash);
+
+    /**
+     * Reads the cached text back into a buffer. The caller discards it.
+     *
+     * @param entry the cached result
+     * @return the extracted text, closed for writing
+     */
+    SpillingTextBuffer loadText(ExtractionCacheEntry entry) throws IOException;
+
+    /**
+     * Caches what processing a document produced, keyed by its content hash. The text is copied
+     * from the document's own stored text, so deleting the document does not affect the cache.
+     * Failures are logged and otherwise ignored.
+     *
+     * @param document    a processed document with its hash, text path, language and page count set
+     * @param textLength  the length of the extracted text
+     * @param pageOffsets where each page starts in the text
+     * @param tags        the auto-generated tags and their confidence
+     */
+    void store(DocumentEntity document, long textLength, List<Long> pageOffsets, Map<String, BigDecimal> tags);
+}
@@ -1,8 +1,23 @@
 package com.marcos.studyasistant.documentservice.service;
 
 import com.marcos.studyasistant.documentservice.dto.LanguageDetectionResultDto;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
 
 public interface LanguageDetectionService {
 
     LanguageDetectionResultDto detectLanguage(String text);
+
+    /**
+     * Detects the language of an extracted text without loading all of it when it has spilled
+     * to disk.
+     */
+    LanguageDetectionResultDto detectLanguage(SpillingTextBuffer text);
+
+    /**
+     * The PostgreSQL text search configuration that stems text in the given language, or
+     * {@code simple} (no stemming, no stop words) when Postgres has none for it.
+     *
+     * @param languageCode an ISO 639-1 code as returned by {@link #detectLanguage}
+     */
+    String getTextSearchConfig(String languageCode);
 }
@@ -4,6 +4,10 @@ import com.marcos.studyasistant.documentservice.dto.PageCountResultDto;
 import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Office;
+import org.apache.tika.metadata.PagedText;
+import org.apache.tika.metadata.Property;
 import org.apache.poi.hslf.usermodel.HSLFSlideShow;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hwpf.HWPFDocument;
@@ -24,6 +28,40 @@ import java.nio.charset.StandardCharsets;
 @Slf4j
 public class PageCountService {
 
+    private static final int CHARS_PER_PAGE = 3000;
+
+    /**
+     * Derives the page count from the metadata Tika already captured while extracting the text,
+     * so the document does not have to be parsed a second time.
+     *
+     * @param document the document being processed
+     * @param metadata the metadata produced during text extraction
+     * @return the page count, or {@code null} when the metadata does not carry one and a
+     *         dedicated parser is needed ({@link #countPagesDetailed})
+     */
+    public PageCountResultDto countPagesFromMetadata(DocumentEntity document, Metadata metadata) {
+        if (document == null || document.getMimeType() == null || metadata == null) {
+            return null;
+        }
+
+        String mimeType = document.getMimeType().toLowerCase();
+
+        return switch (mimeType) {
+            case "application/pdf" -> readCount(metadata, PagedText.N_PAGES, "PDF");
+            case "application/vnd.openxmlformats-officedocument.wordprocessingml.document" ->
+                    readCount(metadata, Office.PAGE_COUNT, "Word DOCX");
+            case "application/vnd.openxmlformats-officedocument.presentationml.presentation" ->
+                    readCount(metadata, Office.SLIDE_COUNT, "PowerPoint PPTX");
+            case "text/plain" -> document.getFileSize() != null && document.getFileSize() > 0
+                    ? PageCountResultDto.estimated(estimateTextPages(document.getFileSize()), "Text", "~3000 chars per page")
+                    : null;
+            default -> {
+                PageCountResultDto paged = readCount(metadata, PagedText.N_PAGES, mimeType);
+                yield paged != null ? paged : readCount(metadata, Office.PAGE_COUNT, mimeType);
+            }
+        };
+    }
+
     public PageCountResultDto countPagesDetailed(DocumentEntity document, InputStream inputStream) {
         if (document == null || document.getFilePath() == null) {
             return PageCountResultDto.unsupported("unknown");
@@ -58,6 +96,15 @@ public class PageCountService {
         }
     }
 
+    private PageCountResultDto readCount(Metadata metadata, Property property, String fileType) {
+        Integer count = metadata.getInt(property);
+        if (count == null || count <= 0) {
+            return null;
+        }
+        log.debug("{} pages read from metadata {}: {}", fileType, property.getName(), count);
+        return PageCountResultDto.fromMetadata(count, fileType, property.getName());
+    }
+
     private Integer countPdfPages(InputStream inputStream) throws IOException {
         try (PDDocument document = PDDocument.load(inputStream)) {
             int pageCount = document.getNumberOfPages();
@@ -119,10 +166,8 @@ public class PageCountService {
     }
 
     private Integer countTextPages(InputStream inputStream, Long fileSize) throws IOException {
-        final int CHARS_PER_PAGE = 3000;
-
         if (fileSize != null && fileSize > 0) {
-            int estimatedPages = Math.max(1, (int) Math.ceil(fileSize.doubleValue() / CHARS_PER_PAGE));
+            int estimatedPages = estimateTextPages(fileSize);
             log.debug("Text pages estimated based on file size: {}", estimatedPages);
             return estimatedPages;
         }
@@ -135,6 +180,10 @@ public class PageCountService {
         }
     }
 
+    private int estimateTextPages(long fileSize) {
+        return Math.max(1, (int) Math.ceil((double) fileSize / CHARS_PER_PAGE));
+    }
+
     private Integer estimateWordPages(XWPFDocument document) {
         int paragraphs = document.getParagraphs().size();
         int tables = document.getTables().size();
@@ -156,7 +205,6 @@ public class PageCountService {
     }
 
     private Integer estimateDocPages(Range range) {
-        final int CHARS_PER_PAGE = 3000;
         int textLength = range.text().length();
         int estimatedPages = Math.max(1, (int) Math.ceil(textLength / (double) CHARS_PER_PAGE));
 
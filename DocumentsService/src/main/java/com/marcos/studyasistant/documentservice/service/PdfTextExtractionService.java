@@ -0,0 +1,20 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import com.marcos.studyasistant.documentservice.dto.PdfExtractionResultDto;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface PdfTextExtractionService {
+
+    /**
+     * Extracts the text of a large PDF by splitting it into page ranges that are read in parallel
+     * and stitched back in page order.
+     *
+     * @param pdfFile   the PDF on local disk (ranges need random access to it)
+     * @param sizeBytes the size of the original upload
+     * @return the stitched text (in a buffer the caller must discard) with per-range timings, or empty when the PDF is below the
+     *         configured page and size thresholds (or cannot be opened) and should go through
+     *         the regular extractor
+     */
+    Optional<PdfExtractionResultDto> extractInRanges(Path pdfFile, long sizeBytes);
+}
@@ -0,0 +1,32 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface TagStatisticsService {
+
+    /**
+     * Records tags added to (positive counts) or removed from (negative counts) a user's
+     * documents. The change is stored in the caller's transaction and counted once it commits.
+     *
+     * @param userId the owner of the documents
+     * @param deltas the change in the number of rows per tag
+     */
+    void recordChange(UUID userId, Map<String, Long> deltas);
+
+    /**
+     * Retrieves the most used tags across all documents, most used first.
+     *
+     * @param limit the maximum number of tags to retrieve
+     */
+    List<String> getTopTags(int limit);
+
+    /**
+     * Retrieves the most used tags on one user's documents, most used first.
+     *
+     * @param userId the owner of the documents
+     * @param limit  the maximum number of tags to retrieve
+     */
+    List<String> getTopTags(UUID userId, int limit);
+}
@@ -0,0 +1,20 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import com.marcos.studyasistant.documentservice.dto.ExtractedTextDto;
+import org.apache.tika.metadata.Metadata;
+import java.io.InputStream;
+
+public interface TextExtractionService {
+
+    /**
+     * Extracts the text of a document and the offset where each page starts in it. Formats
+     * without pages (plain text, Word...) come back with no offsets. The stream is read but
+     * not closed.
+     *
+     * @param inputStream the document content
+     * @param metadata metadata hints for the parser (name, content type); it is filled
+     *                 with whatever the parser finds (page count, author, ...)
+     * @return the extracted text, in a buffer the caller must discard, and the page offsets
+     */
+    ExtractedTextDto extractPagedText(InputStream inputStream, Metadata metadata) throws Exception;
+}
@@ -0,0 +1,16 @@
+package com.marcos.studyasistant.documentservice.service;
+
+import java.util.UUID;
+
+public interface UploadAdmissionService {
+
+    /**
+     * Decides whether a new upload may be accepted given the processing backlog, globally and for
+     * this user. Call it before any work is spent on the upload.
+     *
+     * @param userId the user uploading the document
+     * @throws com.marcos.studyasistant.documentservice.exceptions.UploadRejectedException when the
+     *         service is overloaded, with the number of seconds after which to retry
+     */
+    void admit(UUID userId);
+}
@@ -0,0 +1,126 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.service.AutoTaggingService;
+import com.marcos.studyasistant.documentservice.utils.KeywordAutomaton;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tags documents from a keyword dictionary served by Config Server:
+ * <pre>
+ * documents.tagging.dictionary:
+ *   contract: contract, agreement
+ *   financial: [invoice, bill]
+ * </pre>
+ * The dictionary is compiled into a {@link KeywordAutomaton}, so each document is scanned once no
+ * matter how many keywords there are. A config bus refresh that touches the dictionary rebuilds the
+ * automaton off to the side and swaps it in; documents being tagged keep the one they started with.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AhoCorasickAutoTaggingServiceImpl implements AutoTaggingService {
+
+    private static final String DICTIONARY_PROPERTY = "documents.tagging.dictionary";
+    private static final Bindable<Map<String, List<String>>> DICTIONARY_BINDABLE = Bindable.of(
+            ResolvableType.forClassWithGenerics(Map.class,
+                    ResolvableType.forClass(String.class),
+                    ResolvableType.forClassWithGenerics(List.class, String.class)));
+
+    // Used when Config Server has no dictionary for this service
+    private static final Map<String, List<String>> DEFAULT_DICTIONARY = Map.of(
+            "contract", List.of("contract", "agreement"),
+            "financial", List.of("invoice", "bill"),
+            "report", List.of("report", "analysis"));
+
+    private static final BigDecimal FULL_CONFIDENCE = new BigDecimal("1.00");
+
+    private final Environment environment;
+    private final AtomicReference<KeywordAutomaton> automaton = new AtomicReference<>();
+
+    // Hits at which a tag reaches 0.50 confidence; confidence = hits / (hits + this)
+    @Value("${documents.tagging.half-confidence-hits:1}")
+    private int halfConfidenceHits;
+
+    @Value("${documents.tagging.max-tags:10}")
+    private int maxTags;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(DICTIONARY_PROPERTY))) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public Map<String, BigDecimal> generateTags(Reader text, String mimeType) throws IOException {
+        Map<String, BigDecimal> tags = new LinkedHashMap<>();
+
+        // Tags basados en tipo de archivo
+        if (mimeType != null && mimeType.contains("pdf")) {
+            tags.put("pdf", FULL_CONFIDENCE);
+        } else if (mimeType != null && mimeType.contains("word")) {
+            tags.put("document", FULL_CONFIDENCE);
+        }
+
+        if (text == null) {
+            return tags;
+        }
+
+        Map<String, Integer> hits = automaton.get().countMatches(text);
+        hits.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(Math.max(0, maxTags - tags.size()))
+                .forEach(entry -> tags.putIfAbsent(entry.getKey(), toConfidence(entry.getValue())));
+
+        log.debug("Generated {} automatic tags from {} matching tags", tags.size(), hits.size());
+        return tags;
+    }
+
+    private BigDecimal toConfidence(int hits) {
+        double confidence = (double) hits / (hits + Math.max(1, halfConfidenceHits));
+        return BigDecimal.valueOf(confidence).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private void rebuild() {
+        try {
+            Map<String, List<String>> dictionary = Binder.get(environment)
+                    .bind(DICTIONARY_PROPERTY, DICTIONARY_BINDABLE)
+                    .orElse(DEFAULT_DICTIONARY);
+
+            long start = System.currentTimeMillis();
+            KeywordAutomaton compiled = KeywordAutomaton.compile(dictionary);
+            automaton.set(compiled);
+            log.info("Auto-tagging dictionary compiled: {} tags, {} states in {} ms",
+                    dictionary.size(), compiled.getStateCount(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            // Keep serving the previous dictionary rather than leaving tagging without one
+            if (automaton.get() == null) {
+                throw e;
+            }
+            log.error("Could not compile the auto-tagging dictionary, keeping the previous one: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -18,13 +18,13 @@ public class DocumentEventPublisherImpl implements DocumentEventPublisher {
     private static final String DOCUMENT_PROCESSING_COMPLETED_TOPIC = "document.processing.completed";
 
     @Override
-    public void publishDocumentProcessingCompleted(DocumentEntity document) {
+    public void publishDocumentProcessingCompleted(DocumentEntity document, String extractedText) {
         try {
             DocumentProcessingCompletedEvent event = DocumentProcessingCompletedEvent.builder()
                     .documentId(document.getId())
                     .userId(document.getUserId())
                     .originalFilename(document.getOriginalFilename())
-                    .extractedText(document.getExtractedText())
+                    .extractedText(extractedText)
                     .languageDetected(document.getLanguageDetected())
                     .pageCount(document.getPageCount())
                     .processedAt(document.getProcessedAt())
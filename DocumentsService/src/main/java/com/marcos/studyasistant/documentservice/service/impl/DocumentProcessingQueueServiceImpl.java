@@ -0,0 +1,235 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentProcessingJob;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentProcessingJobRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentProcessingQueueService;
+import com.marcos.studyasistant.documentservice.service.DocumentsProcessingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Durable processing queue shared by every replica of the service.
+ * <p>
+ * A replica claims jobs by locking queued rows with {@code FOR UPDATE SKIP LOCKED} and stamping
+ * them with its id and a lease expiry. While a job runs the lease is renewed; if the replica dies,
+ * the lease lapses and the sweeper of any replica puts the job back in the queue. A job whose lease
+ * has lapsed {@code max-attempts} times (a document that keeps killing its worker) is failed
+ * instead of retried forever.
+ */
+@Service
+@Slf4j
+public class DocumentProcessingQueueServiceImpl implements DocumentProcessingQueueService {
+
+    private static final Set<ProcessingStatus> PENDING_STATUSES = EnumSet.of(ProcessingStatus.UPLOADED, ProcessingStatus.PROCESSING);
+
+    private final DocumentProcessingJobRepository jobRepository;
+    private final DocumentsRepository documentsRepository;
+    private final DocumentsProcessingService documentsProcessingService;
+    private final Executor documentProcessingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore workerSlots;
+
+    // Identifies this instance in lease_owner; a restarted instance does not inherit old leases
+    private final String leaseOwner = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final Set<UUID> runningJobs = ConcurrentHashMap.newKeySet();
+
+    // Weight of the latest job in the processing time average
+    private static final double PROCESSING_TIME_WEIGHT = 0.2;
+    private double averageProcessingTimeMs;
+
+    @Value("${documents.processing.lease.duration-ms:120000}")
+    private long leaseDurationMs;
+
+    @Value("${documents.processing.lease.max-attempts:3}")
+    private int maxAttempts;
+
+    // Documents left pending this long without a queued or running job are queued again
+    @Value("${documents.processing.lease.orphan-grace-ms:600000}")
+    private long orphanGraceMs;
+
+    @Value("${documents.processing.lease.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    public DocumentProcessingQueueServiceImpl(DocumentProcessingJobRepository jobRepository,
+                                              DocumentsRepository documentsRepository,
+                                              DocumentsProcessingService documentsProcessingService,
+                                              @Qualifier("documentProcessingExecutor") Executor documentProcessingExecutor,
+                                              PlatformTransactionManager transactionManager,
+                                              @Value("${documents.processing.worker.concurrency:2}") int concurrency) {
+        this.jobRepository = jobRepository;
+        this.documentsRepository = documentsRepository;
+        this.documentsProcessingService = documentsProcessingService;
+        this.documentProcessingExecutor = documentProcessingExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerSlots = new Semaphore(concurrency);
+    }
+
+    @Override
+    public void enqueue(UUID documentId) {
+        DocumentProcessingJob job = DocumentProcessingJob.builder()
+                .documentId(documentId)
+                .status(ProcessingJobStatus.QUEUED)
+                .build();
+        jobRepository.save(job);
+        log.info("Document {} queued for processing", documentId);
+    }
+
+    @Override
+    public void dequeue(UUID documentId) {
+        if (jobRepository.deleteByDocumentId(documentId) > 0) {
+            log.info("Document {} removed from the processing queue", documentId);
+        }
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return jobRepository.countByStatus(ProcessingJobStatus.QUEUED);
+    }
+
+    @Override
+    public synchronized long getAverageProcessingTimeMs() {
+        return Math.round(averageProcessingTimeMs);
+    }
+
+    private synchronized void recordProcessingTime(long elapsedMs) {
+        averageProcessingTimeMs = averageProcessingTimeMs == 0
+                ? elapsedMs
+                : PROCESSING_TIME_WEIGHT * elapsedMs + (1 - PROCESSING_TIME_WEIGHT) * averageProcessingTimeMs;
+    }
+
+    @Scheduled(fixedDelayString = "${documents.processing.queue.poll-interval-ms:1000}")
+    public void drainQueue() {
+        int freeSlots = workerSlots.availablePermits();
+        if (freeSlots == 0) {
+            return;
+        }
+
+        for (DocumentProcessingJob job : claimJobs(freeSlots)) {
+            if (!workerSlots.tryAcquire()) {
+                // Slots only shrink when this method hands out work, so this should not happen
+                jobRepository.release(job.getId(), leaseOwner, LocalDateTime.now());
+                continue;
+            }
+            runningJobs.add(job.getId());
+            try {
+                documentProcessingExecutor.execute(() -> runJob(job));
+            } catch (RuntimeException e) {
+                runningJobs.remove(job.getId());
+                workerSlots.release();
+                jobRepository.release(job.getId(), leaseOwner, LocalDateTime.now());
+                log.error("Could not hand job {} to a worker: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private List<DocumentProcessingJob> claimJobs(int limit) {
+        return transactionTemplate.execute(status -> {
+            List<UUID> ids = jobRepository.lockQueued(limit);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            jobRepository.claim(ids, leaseOwner, LocalDateTime.now(), leaseSeconds());
+            return jobRepository.findAllById(ids);
+        });
+    }
+
+    private double leaseSeconds() {
+        return leaseDurationMs / 1000.0;
+    }
+
+    /**
+     * Keeps the leases of the jobs running here alive, well before they could lapse. Runs on its
+     * own scheduler so that no other periodic task can delay it past the lease.
+     */
+    @Scheduled(fixedDelayString = "${documents.processing.lease.renew-interval-ms:30000}", scheduler = "leaseScheduler")
+    public void renewLeases() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        Set<UUID> jobs = Set.copyOf(runningJobs);
+        int renewed = jobRepository.renewLeases(jobs, leaseOwner, leaseSeconds());
+        if (renewed < jobs.size()) {
+            // Lost to the sweeper (e.g. after a long pause); whoever claims it next will redo it
+            log.warn("Only {} of {} leases renewed by {}", renewed, jobs.size(), leaseOwner);
+        }
+    }
+
+    /**
+     * Recovers work abandoned by dead instances: jobs whose lease has lapsed go back to the queue
+     * (or fail, past the attempt limit), and pending documents without any job get one.
+     */
+    @Scheduled(fixedDelayString = "${documents.processing.lease.sweep-interval-ms:30000}",
+            initialDelayString = "${documents.processing.lease.sweep-initial-delay-ms:10000}",
+            scheduler = "leaseScheduler")
+    public void sweepExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (DocumentProcessingJob job : jobRepository.findExpiredLeases(sweepBatchSize)) {
+            if (job.getAttempts() >= maxAttempts) {
+                String error = "Processing lease expired " + job.getAttempts() + " times (last owner " + job.getLeaseOwner() + ")";
+                if (jobRepository.failExpired(job.getId(), error, now) > 0) {
+                    documentsRepository.updateStatus(job.getDocumentId(), ProcessingStatus.FAILED, error, now);
+                    log.error("Gave up on document {}: {}", job.getDocumentId(), error);
+                }
+            } else if (jobRepository.requeueExpired(job.getId(), now) > 0) {
+                log.warn("Re-queued document {}: lease of {} expired at {}",
+                        job.getDocumentId(), job.getLeaseOwner(), job.getLeaseExpiresAt());
+            }
+        }
+
+        List<UUID> orphans = documentsRepository.findOrphanedIds(PENDING_STATUSES,
+                now.minusNanos(orphanGraceMs * 1_000_000), PageRequest.of(0, sweepBatchSize));
+        for (UUID documentId : orphans) {
+            // Either its job already ended (the document row was never updated) or it never had one
+            boolean requeued = jobRepository.requeueFinished(documentId, now) > 0;
+            if (!requeued && !jobRepository.existsByDocumentId(documentId)) {
+                enqueue(documentId);
+                requeued = true;
+            }
+            if (requeued) {
+                log.warn("Re-queued document {}: it was pending with no queued or running job", documentId);
+            }
+        }
+    }
+
+    private void runJob(DocumentProcessingJob job) {
+        long start = System.currentTimeMillis();
+        try {
+            documentsProcessingService.processDocument(job.getDocumentId()).join();
+            finish(job, ProcessingJobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            finish(job, ProcessingJobStatus.FAILED, cause.getMessage());
+            log.error("Processing job {} for document {} failed: {}", job.getId(), job.getDocumentId(), cause.getMessage());
+        } finally {
+            runningJobs.remove(job.getId());
+            recordProcessingTime(System.currentTimeMillis() - start);
+            workerSlots.release();
+        }
+    }
+
+    private void finish(DocumentProcessingJob job, ProcessingJobStatus status, String error) {
+        if (jobRepository.finish(job.getId(), leaseOwner, status, error, LocalDateTime.now()) == 0) {
+            log.warn("Job {} finished as {} after its lease was lost; the outcome is left to the new owner",
+                    job.getId(), status);
+        }
+    }
+}
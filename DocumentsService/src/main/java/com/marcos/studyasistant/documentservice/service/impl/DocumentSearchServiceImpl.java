@@ -0,0 +1,163 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.dto.DocumentSearchResultDto;
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import com.marcos.studyasistant.documentservice.entity.enums.SegmentType;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentPageSegmentRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentSearchService;
+import com.marcos.studyasistant.documentservice.service.LanguageDetectionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over document pages, backed by a {@code tsvector} column on
+ * {@code document_page_segments} and a GIN index over the owner and that vector, so a search only
+ * ever reads the user's own pages. Hibernate does not know the search columns; the migrations
+ * create them.
+ * <p>
+ * Each segment is stemmed with the text search configuration of its document's detected language,
+ * which is kept next to the vector. A query is matched through the index against the variants
+ * stemmed for every language the user has, then checked, ranked and highlighted with the
+ * configuration of each matching page.
+ */
+@Service
+@Slf4j
+public class DocumentSearchServiceImpl implements DocumentSearchService {
+
+    private static final String SIMPLE_CONFIG = "simple";
+
+    // The text is escaped before it is returned, so the highlight markers must not be markup
+    private static final String MATCH_START = "\u0002";
+    private static final String MATCH_END = "\u0003";
+    private static final String HEADLINE_OPTIONS = "StartSel=" + MATCH_START + ", StopSel=" + MATCH_END
+            + ", MaxFragments=2, MinWords=8, MaxWords=25, FragmentDelimiter=\" … \"";
+
+    // %s: the query stemmed for each configuration, OR-ed into one tsquery the GIN index can use
+    // together with the owner. Only the best pages get a headline, the most expensive part of the query.
+    private static final String SEARCH_SQL = """
+            SELECT hit.document_id, d.original_filename, hit.segment_number, hit.segment_type, hit.rank,
+                   ts_headline(CAST(hit.search_config AS regconfig), s.content,
+                               websearch_to_tsquery(CAST(hit.search_config AS regconfig), :query),
+                               :headlineOptions) AS snippet
+            FROM (SELECT s.id, s.document_id, s.segment_number, s.segment_type, s.search_config,
+                         ts_rank_cd(s.search_vector, websearch_to_tsquery(CAST(s.search_config AS regconfig), :query)) AS rank
+                  FROM document_page_segments s
+                  WHERE s.user_id = :userId
+                    AND s.search_vector @@ (%s)
+                    AND s.search_vector @@ websearch_to_tsquery(CAST(s.search_config AS regconfig), :query)
+                  ORDER BY rank DESC
+                  LIMIT :limit) hit
+            JOIN document_page_segments s ON s.id = hit.id
+            JOIN documents d ON d.id = hit.document_id
+            ORDER BY hit.rank DESC
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DocumentPageSegmentRepository segmentRepository;
+    private final DocumentsRepository documentsRepository;
+    private final LanguageDetectionService languageDetectionService;
+
+    @Value("${documents.search.max-results:100}")
+    private int maxResults;
+
+    @Value("${documents.search.max-query-chars:500}")
+    private int maxQueryChars;
+
+    @Value("${documents.search.backfill-batch-size:20}")
+    private int backfillBatchSize;
+
+    public DocumentSearchServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                     DocumentPageSegmentRepository segmentRepository,
+                                     DocumentsRepository documentsRepository,
+                                     LanguageDetectionService languageDetectionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.segmentRepository = segmentRepository;
+        this.documentsRepository = documentsRepository;
+        this.languageDetectionService = languageDetectionService;
+    }
+
+    @Override
+    public int indexDocument(UUID documentId, String detectedLanguage) {
+        return segmentRepository.indexForSearch(documentId, languageDetectionService.getTextSearchConfig(detectedLanguage));
+    }
+
+    @Override
+    public List<DocumentSearchResultDto> search(UUID userId, String query, int limit) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId es obligatorio");
+        }
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("La búsqueda no puede estar vacía");
+        }
+        if (query.length() > maxQueryChars) {
+            throw new IllegalArgumentException("La búsqueda no puede superar " + maxQueryChars + " caracteres");
+        }
+
+        // Configurations come from a fixed list, never from the request, so they can be inlined
+        Set<String> configs = documentsRepository.findDetectedLanguages(userId, ProcessingStatus.COMPLETED).stream()
+                .map(languageDetectionService::getTextSearchConfig)
+                .collect(Collectors.toCollection(TreeSet::new));
+        configs.add(SIMPLE_CONFIG);
+        String anyConfig = configs.stream()
+                .map(config -> "websearch_to_tsquery('" + config + "', :query)")
+                .collect(Collectors.joining(" || "));
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("query", query)
+                .addValue("headlineOptions", HEADLINE_OPTIONS)
+                .addValue("limit", Math.max(1, Math.min(limit, maxResults)));
+
+        long start = System.currentTimeMillis();
+        List<DocumentSearchResultDto> results = jdbcTemplate.query(SEARCH_SQL.formatted(anyConfig), parameters,
+                (row, rowNum) -> new DocumentSearchResultDto(
+                        row.getObject("document_id", UUID.class),
+                        row.getString("original_filename"),
+                        row.getInt("segment_number"),
+                        SegmentType.valueOf(row.getString("segment_type")),
+                        row.getDouble("rank"),
+                        highlight(row.getString("snippet"))));
+        log.debug("Search for user {} over {} configurations returned {} pages in {} ms",
+                userId, configs.size(), results.size(), System.currentTimeMillis() - start);
+        return results;
+    }
+
+    /**
+     * Indexes the pages of documents processed before search existed, or whose indexing failed.
+     */
+    @Scheduled(fixedDelayString = "${documents.search.backfill-interval-ms:60000}",
+            initialDelayString = "${documents.search.backfill-initial-delay-ms:60000}")
+    public void backfillIndex() {
+        List<UUID> documentIds = segmentRepository.findUnindexedDocumentIds(backfillBatchSize);
+        for (DocumentEntity document : documentsRepository.findAllById(documentIds)) {
+            try {
+                int segments = indexDocument(document.getId(), document.getLanguageDetected());
+                log.info("Indexed {} segments of document {} for search", segments, document.getId());
+            } catch (RuntimeException e) {
+                log.warn("Could not index document {} for search: {}", document.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private String highlight(String snippet) {
+        if (snippet == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(snippet, StandardCharsets.UTF_8.name())
+                .replace(MATCH_START, "<mark>")
+                .replace(MATCH_END, "</mark>");
+    }
+}
@@ -0,0 +1,233 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.dto.DocumentPageSegmentDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentPagesResponseDto;
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.DocumentPageSegment;
+import com.marcos.studyasistant.documentservice.entity.enums.SegmentType;
+import com.marcos.studyasistant.documentservice.exceptions.DocumentNotFoundException;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentPageSegmentRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentSegmentService;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class DocumentSegmentServiceImpl implements DocumentSegmentService {
+
+    private final DocumentPageSegmentRepository segmentRepository;
+    private final DocumentsRepository documentsRepository;
+
+    // Target size of a section for formats without pages, about one printed page
+    @Value("${documents.segments.section-chars:3000}")
+    private int sectionChars;
+
+    // Segments inserted per transaction while storing, matching the JDBC batch size
+    @Value("${documents.segments.insert-batch-size:50}")
+    private int insertBatchSize;
+
+    @Value("${documents.segments.max-pages-per-request:50}")
+    private int maxPagesPerRequest;
+
+    // Segments loaded per query while streaming content
+    @Value("${documents.content.stream.segment-batch-size:20}")
+    private int streamBatchSize;
+
+    public DocumentSegmentServiceImpl(DocumentPageSegmentRepository segmentRepository,
+                                      DocumentsRepository documentsRepository) {
+        this.segmentRepository = segmentRepository;
+        this.documentsRepository = documentsRepository;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public int storeSegments(DocumentEntity document, SpillingTextBuffer text, List<Long> pageOffsets) throws IOException {
+        segmentRepository.deleteByDocumentId(document.getId());
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+
+        // Each batch is saved in its own transaction, so neither the text nor the persistence
+        // context ever holds more than one batch of segments
+        List<DocumentPageSegment> batch = new ArrayList<>(Math.max(1, insertBatchSize));
+        try (Reader reader = text.openReader()) {
+            return pageOffsets == null || pageOffsets.isEmpty()
+                    ? storeSections(document, reader, batch)
+                    : storePages(document, reader, text.length(), pageOffsets, batch);
+        }
+    }
+
+    @Override
+    public DocumentPagesResponseDto getPages(UUID documentId, int from, Integer to) {
+        if (!documentsRepository.existsById(documentId)) {
+            throw new DocumentNotFoundException("Document not found");
+        }
+
+        int last = to != null ? to : from;
+        if (from < 1 || last < from) {
+            throw new IllegalArgumentException("El rango de páginas debe cumplir 1 <= from <= to");
+        }
+        if (last - from + 1 > maxPagesPerRequest) {
+            throw new IllegalArgumentException("No se pueden pedir más de " + maxPagesPerRequest + " páginas a la vez");
+        }
+
+        List<DocumentPageSegmentDto> pages = segmentRepository
+                .findByDocumentIdAndSegmentNumberBetweenOrderBySegmentNumberAsc(documentId, from, last)
+                .stream()
+                .map(this::toDto)
+                .toList();
+
+        return new DocumentPagesResponseDto(documentId, from, last, segmentRepository.countByDocumentId(documentId), pages);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public boolean writeText(UUID documentId, long offset, long length, Writer writer) throws IOException {
+        long end = offset + length;
+        Pageable batch = PageRequest.of(0, Math.max(1, streamBatchSize));
+        boolean found = false;
+
+        // Each batch is its own short read, so no persistence context holds on to earlier pages
+        Slice<DocumentPageSegment> segments;
+        do {
+            segments = segmentRepository.findOverlapping(documentId, offset, end, batch);
+            for (DocumentPageSegment segment : segments) {
+                found = true;
+                int from = (int) (Math.max(offset, segment.getStartOffset()) - segment.getStartOffset());
+                int to = (int) (Math.min(end, segment.getEndOffset()) - segment.getStartOffset());
+                writer.write(segment.getContent(), from, to - from);
+            }
+            batch = segments.nextPageable();
+        } while (segments.hasNext());
+
+        return found || segmentRepository.countByDocumentId(documentId) > 0;
+    }
+
+    @Override
+    public void deleteSegments(UUID documentId) {
+        segmentRepository.deleteByDocumentId(documentId);
+    }
+
+    private int storePages(DocumentEntity document, Reader text, long length, List<Long> pageOffsets,
+                           List<DocumentPageSegment> batch) throws IOException {
+        long start = 0;
+        for (int page = 0; page < pageOffsets.size(); page++) {
+            // Anything the parser wrote before the first page belongs to page 1
+            long end = page + 1 < pageOffsets.size() ? pageOffsets.get(page + 1) : length;
+            String content = readChars(text, end - start);
+            addSegment(batch, buildSegment(document, page + 1, SegmentType.PAGE, start, content));
+            start += content.length();
+        }
+        saveBatch(batch);
+        return pageOffsets.size();
+    }
+
+    private int storeSections(DocumentEntity document, Reader text, List<DocumentPageSegment> batch) throws IOException {
+        int size = Math.max(1, sectionChars);
+        // One character more than a section, to tell a full last section from a cut one
+        char[] window = new char[size + 1];
+        int filled = 0;
+        int count = 0;
+        long start = 0;
+        while (true) {
+            filled = fill(text, window, filled);
+            if (filled == 0) {
+                break;
+            }
+            int end = filled <= size ? filled : sectionEnd(window, size);
+            String content = new String(window, 0, end);
+            addSegment(batch, buildSegment(document, ++count, SegmentType.SECTION, start, content));
+            start += end;
+            System.arraycopy(window, end, window, 0, filled - end);
+            filled -= end;
+        }
+        saveBatch(batch);
+        return count;
+    }
+
+    // Prefers to cut after a line break, then after any whitespace, in the second half of the section
+    private int sectionEnd(char[] window, int size) {
+        int floor = size / 2;
+        for (int i = size - 1; i >= floor; i--) {
+            if (window[i] == '\n') {
+                return i + 1;
+            }
+        }
+        for (int i = size - 1; i >= floor; i--) {
+            if (Character.isWhitespace(window[i])) {
+                return i + 1;
+            }
+        }
+        return size;
+    }
+
+    private int fill(Reader text, char[] window, int filled) throws IOException {
+        while (filled < window.length) {
+            int read = text.read(window, filled, window.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+
+    private String readChars(Reader text, long count) throws IOException {
+        char[] chars = new char[(int) Math.max(0, count)];
+        return new String(chars, 0, fill(text, chars, 0));
+    }
+
+    private void addSegment(List<DocumentPageSegment> batch, DocumentPageSegment segment) throws IOException {
+        batch.add(segment);
+        if (batch.size() >= insertBatchSize) {
+            saveBatch(batch);
+        }
+    }
+
+    private void saveBatch(List<DocumentPageSegment> batch) throws IOException {
+        // Segmentation runs as a processing stage, which is interrupted once it is given up on
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Segmentation was cancelled");
+        }
+        if (!batch.isEmpty()) {
+            segmentRepository.saveAll(batch);
+            batch.clear();
+        }
+    }
+
+    private DocumentPageSegment buildSegment(DocumentEntity document, int number, SegmentType type,
+                                             long start, String content) {
+        return DocumentPageSegment.builder()
+                .document(document)
+                .userId(document.getUserId())
+                .segmentNumber(number)
+                .segmentType(type)
+                .startOffset(start)
+                .endOffset(start + content.length())
+                // Postgres text columns reject NUL; a space keeps the offsets intact
+                .content(content.replace('\u0000', ' '))
+                .build();
+    }
+
+    private DocumentPageSegmentDto toDto(DocumentPageSegment segment) {
+        return new DocumentPageSegmentDto(
+                segment.getSegmentNumber(),
+                segment.getSegmentType(),
+                segment.getStartOffset(),
+                segment.getEndOffset(),
+                segment.getContent());
+    }
+}
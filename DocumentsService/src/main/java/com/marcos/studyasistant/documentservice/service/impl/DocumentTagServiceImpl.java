@@ -2,16 +2,20 @@ package com.marcos.studyasistant.documentservice.service.impl;
 
 import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
 import com.marcos.studyasistant.documentservice.entity.DocumentTag;
+import com.marcos.studyasistant.documentservice.exceptions.DocumentNotFoundException;
 import com.marcos.studyasistant.documentservice.reposiroty.DocumentTagRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
 import com.marcos.studyasistant.documentservice.service.DocumentTagService;
+import com.marcos.studyasistant.documentservice.service.TagStatisticsService;
 import jakarta.transaction.Transactional;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,33 +23,51 @@ import java.util.stream.Collectors;
 public class DocumentTagServiceImpl implements DocumentTagService {
 
     private final DocumentTagRepository tagRepository;
+    private final DocumentsRepository documentsRepository;
+    private final TagStatisticsService tagStatisticsService;
 
-    public DocumentTagServiceImpl(DocumentTagRepository tagRepository) {
+    public DocumentTagServiceImpl(DocumentTagRepository tagRepository, DocumentsRepository documentsRepository,
+                                  TagStatisticsService tagStatisticsService) {
         this.tagRepository = tagRepository;
+        this.documentsRepository = documentsRepository;
+        this.tagStatisticsService = tagStatisticsService;
     }
 
     @Override
     public DocumentTag addTag(DocumentEntity document, String tag, BigDecimal confidenceScore) {
-        DocumentTag documentTag = new DocumentTag();
-        documentTag.setDocument(document);
-        documentTag.setTag(tag.toLowerCase().trim());
-        documentTag.setConfidenceScore(confidenceScore);
-
-        return tagRepository.save(documentTag);
+        return recordAdded(List.of(tagRepository.save(buildTag(document, tag, confidenceScore)))).get(0);
     }
 
     @Override
     public List<DocumentTag> addTags(DocumentEntity document, List<String> tags) {
-        return tags.stream()
-                .map(tag -> addTag(document, tag, null))
-                .collect(Collectors.toList());
+        Map<String, BigDecimal> withoutConfidence = new LinkedHashMap<>();
+        tags.forEach(tag -> withoutConfidence.put(tag, null));
+        return addAutoGeneratedTags(document, withoutConfidence);
     }
 
     @Override
     public List<DocumentTag> addAutoGeneratedTags(DocumentEntity document, Map<String, BigDecimal> tagsWithConfidence) {
-        return tagsWithConfidence.entrySet().stream()
-                .map(entry -> addTag(document, entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+        // saveAll inside this transaction lets Hibernate send the inserts as one JDBC batch
+        return recordAdded(tagRepository.saveAll(buildTags(document, tagsWithConfidence)));
+    }
+
+    @Override
+    public List<DocumentTag> addTagsToDocuments(Map<UUID, List<String>> tagsByDocument) {
+        Map<UUID, DocumentEntity> documents = documentsRepository.findAllById(tagsByDocument.keySet()).stream()
+                .collect(Collectors.toMap(DocumentEntity::getId, Function.identity()));
+
+        List<DocumentTag> documentTags = new ArrayList<>();
+        for (Map.Entry<UUID, List<String>> entry : tagsByDocument.entrySet()) {
+            DocumentEntity document = documents.get(entry.getKey());
+            if (document == null) {
+                throw new DocumentNotFoundException("Document not found: " + entry.getKey());
+            }
+            Map<String, BigDecimal> withoutConfidence = new LinkedHashMap<>();
+            entry.getValue().forEach(tag -> withoutConfidence.put(tag, null));
+            documentTags.addAll(buildTags(document, withoutConfidence));
+        }
+
+        return recordAdded(tagRepository.saveAll(documentTags));
     }
 
     @Override
@@ -53,13 +75,62 @@ public class DocumentTagServiceImpl implements DocumentTagService {
         return tagRepository.findByDocumentIdOrderByConfidenceScoreDesc(documentId);
     }
 
+    private List<DocumentTag> buildTags(DocumentEntity document, Map<String, BigDecimal> tagsWithConfidence) {
+        // Normalise first so "Exam" and "exam " become a single row
+        Map<String, DocumentTag> unique = new LinkedHashMap<>();
+        tagsWithConfidence.forEach((tag, confidence) -> {
+            DocumentTag documentTag = buildTag(document, tag, confidence);
+            unique.putIfAbsent(documentTag.getTag(), documentTag);
+        });
+        return new ArrayList<>(unique.values());
+    }
+
+    private DocumentTag buildTag(DocumentEntity document, String tag, BigDecimal confidenceScore) {
+        DocumentTag documentTag = new DocumentTag();
+        documentTag.setDocument(document);
+        documentTag.setTag(tag.toLowerCase().trim());
+        documentTag.setConfidenceScore(confidenceScore);
+        return documentTag;
+    }
+
     @Override
     public List<String> getMostUsedTags(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return tagRepository.findMostUsedTags(pageable)
-                .stream()
-                .map(result -> (String) result[0])
-                .collect(Collectors.toList());
+        return tagStatisticsService.getTopTags(limit);
+    }
+
+    @Override
+    public List<String> getMostUsedTags(UUID userId, int limit) {
+        return tagStatisticsService.getTopTags(userId, limit);
+    }
+
+    @Override
+    public int deleteDocumentTags(DocumentEntity document) {
+        recordRemoved(document, tagRepository.countTagsByDocumentId(document.getId()));
+        return tagRepository.deleteByDocumentId(document.getId());
+    }
+
+    @Override
+    public int deleteAutoGeneratedTags(DocumentEntity document) {
+        recordRemoved(document, tagRepository.countAutoGeneratedTagsByDocumentId(document.getId()));
+        return tagRepository.deleteAutoGeneratedByDocumentId(document.getId());
+    }
+
+    private void recordRemoved(DocumentEntity document, List<Object[]> counts) {
+        Map<String, Long> removed = new LinkedHashMap<>();
+        for (Object[] row : counts) {
+            removed.put((String) row[0], -((Long) row[1]));
+        }
+        tagStatisticsService.recordChange(document.getUserId(), removed);
+    }
+
+    private List<DocumentTag> recordAdded(List<DocumentTag> saved) {
+        Map<UUID, Map<String, Long>> addedByUser = new LinkedHashMap<>();
+        for (DocumentTag tag : saved) {
+            addedByUser.computeIfAbsent(tag.getDocument().getUserId(), userId -> new LinkedHashMap<>())
+                    .merge(tag.getTag(), 1L, Long::sum);
+        }
+        addedByUser.forEach(tagStatisticsService::recordChange);
+        return saved;
     }
 
     @Override
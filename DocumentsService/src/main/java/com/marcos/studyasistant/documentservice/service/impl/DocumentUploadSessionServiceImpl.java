@@ -0,0 +1,281 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.dto.ChunkedUploadTargetDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionRequestDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionResponseDto;
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.DocumentUploadSession;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import com.marcos.studyasistant.documentservice.entity.enums.UploadSessionStatus;
+import com.marcos.studyasistant.documentservice.exceptions.DocumentNotFoundException;
+import com.marcos.studyasistant.documentservice.exceptions.DocumentProcessingException;
+import com.marcos.studyasistant.documentservice.mappers.DocumentMapper;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentUploadSessionRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentProcessingQueueService;
+import com.marcos.studyasistant.documentservice.service.DocumentUploadSessionService;
+import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.service.UploadAdmissionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class DocumentUploadSessionServiceImpl implements DocumentUploadSessionService {
+
+    // S3 multipart limits: part count, and minimum size of every part but the last
+    private static final int MAX_CHUNKS = 10_000;
+    private static final int MIN_CHUNK_BYTES = 5 * 1024 * 1024;
+
+    // A session stuck finalizing lost its instance midway; it is given up like an idle one
+    private static final List<UploadSessionStatus> EXPIRABLE_STATUSES =
+            List.of(UploadSessionStatus.ACTIVE, UploadSessionStatus.FINALIZING);
+
+    private final DocumentUploadSessionRepository sessionRepository;
+    private final DocumentsRepository documentsRepository;
+    private final DocumentsStorageService documentsStorageService;
+    private final DocumentProcessingQueueService documentProcessingQueueService;
+    private final DocumentMapper documentMapper;
+    private final UploadAdmissionService uploadAdmissionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${documents.upload.chunk.max-bytes:33554432}")
+    private int maxChunkBytes;
+
+    // Sessions without any activity for this long are aborted along with their staged chunks
+    @Value("${documents.upload.session.ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${documents.upload.session.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    public DocumentUploadSessionServiceImpl(DocumentUploadSessionRepository sessionRepository,
+                                            DocumentsRepository documentsRepository,
+                                            DocumentsStorageService documentsStorageService,
+                                            DocumentProcessingQueueService documentProcessingQueueService,
+                                            DocumentMapper documentMapper,
+                                            UploadAdmissionService uploadAdmissionService,
+                                            PlatformTransactionManager transactionManager) {
+        this.sessionRepository = sessionRepository;
+        this.documentsRepository = documentsRepository;
+        this.documentsStorageService = documentsStorageService;
+        this.documentProcessingQueueService = documentProcessingQueueService;
+        this.documentMapper = documentMapper;
+        this.uploadAdmissionService = uploadAdmissionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public UploadSessionResponseDto initiate(UploadSessionRequestDto request) {
+        if (request.userId() == null || request.filename() == null || request.filename().isBlank()) {
+            throw new IllegalArgumentException("userId y filename son obligatorios");
+        }
+
+        // Large uploads go through sessions; refuse them before the client sends any chunk
+        uploadAdmissionService.admit(request.userId());
+
+        String mimeType = request.mimeType() != null ? request.mimeType() : "application/octet-stream";
+        try {
+            ChunkedUploadTargetDto target = documentsStorageService.initiateChunkedUpload(request.filename(), mimeType);
+
+            DocumentUploadSession session = DocumentUploadSession.builder()
+                    .userId(request.userId())
+                    .originalFilename(request.filename())
+                    .mimeType(mimeType)
+                    .expectedSize(request.fileSize())
+                    .filePath(target.filePath())
+                    .uploadId(target.uploadId())
+                    .status(UploadSessionStatus.ACTIVE)
+                    .build();
+
+            session = sessionRepository.save(session);
+            log.info("Upload session {} started for {}", session.getId(), request.filename());
+            return toResponse(session, Map.of());
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to start upload session : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void uploadChunk(UUID sessionId, int chunkNumber, byte[] data) {
+        if (chunkNumber < 1 || chunkNumber > MAX_CHUNKS) {
+            throw new IllegalArgumentException("El número de chunk debe estar entre 1 y " + MAX_CHUNKS);
+        }
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("El chunk no puede estar vacío");
+        }
+        if (data.length > maxChunkBytes) {
+            throw new IllegalArgumentException("El chunk supera el tamaño máximo de " + maxChunkBytes + " bytes");
+        }
+
+        DocumentUploadSession session = findActiveSession(sessionId);
+
+        // Storage only rejects a short part when the upload is completed, after the whole file was
+        // sent, so the rule is enforced as chunks arrive: a short chunk is the last one
+        LocalDateTime now = LocalDateTime.now();
+        if (data.length < MIN_CHUNK_BYTES && sessionRepository.markLastChunk(sessionId, chunkNumber, now) == 0) {
+            throw new IllegalArgumentException("Solo el último chunk puede tener menos de " + MIN_CHUNK_BYTES + " bytes");
+        }
+        if (sessionRepository.recordChunk(sessionId, chunkNumber, now) == 0) {
+            throw new IllegalArgumentException("El chunk " + chunkNumber + " va después del último chunk de la subida");
+        }
+
+        try {
+            documentsStorageService.uploadChunk(session.getFilePath(), session.getUploadId(), chunkNumber, data);
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to store chunk " + chunkNumber + " : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public UploadSessionResponseDto getSession(UUID sessionId) {
+        DocumentUploadSession session = findSession(sessionId);
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            return toResponse(session, Map.of());
+        }
+        return toResponse(session, listChunks(session));
+    }
+
+    @Override
+    public DocumentResponseDto finalizeUpload(UUID sessionId) {
+        DocumentUploadSession session = findActiveSession(sessionId);
+        // Claimed before anything else, so a concurrent finalize or abort finds it no longer active
+        if (sessionRepository.transition(sessionId, UploadSessionStatus.ACTIVE,
+                UploadSessionStatus.FINALIZING, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Upload session is no longer active");
+        }
+
+        SortedMap<Integer, Long> chunks;
+        long fileSize;
+        try {
+            chunks = listChunks(session);
+            if (chunks.isEmpty() || chunks.lastKey() != chunks.size()) {
+                throw new IllegalStateException("Faltan chunks: recibidos " + chunks.keySet());
+            }
+            fileSize = chunks.values().stream().mapToLong(Long::longValue).sum();
+            if (session.getExpectedSize() != null && session.getExpectedSize() != fileSize) {
+                throw new IllegalStateException("Tamaño recibido " + fileSize + " distinto del esperado " + session.getExpectedSize());
+            }
+            documentsStorageService.completeChunkedUpload(session.getFilePath(), session.getUploadId());
+        } catch (Exception e) {
+            // Nothing was assembled yet: the client can send the missing chunks and finalize again
+            sessionRepository.transition(sessionId, UploadSessionStatus.FINALIZING,
+                    UploadSessionStatus.ACTIVE, LocalDateTime.now());
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new DocumentProcessingException("Failed to finalize upload : " + e.getMessage());
+        }
+
+        try {
+            DocumentEntity newDocument = DocumentEntity.builder()
+                    .userId(session.getUserId())
+                    .originalFilename(session.getOriginalFilename())
+                    .filePath(session.getFilePath())
+                    .mimeType(session.getMimeType())
+                    .fileSize(fileSize)
+                    .status(ProcessingStatus.UPLOADED)
+                    .build();
+
+            // The document, its job and the completed session are committed together
+            DocumentEntity document = transactionTemplate.execute(status -> {
+                DocumentEntity saved = documentsRepository.save(newDocument);
+
+                session.setStatus(UploadSessionStatus.COMPLETED);
+                session.setDocumentId(saved.getId());
+                sessionRepository.save(session);
+
+                // Chunked uploads are fingerprinted by the ingestion pass instead of at upload time
+                documentProcessingQueueService.enqueue(saved.getId());
+                return saved;
+            });
+
+            log.info("Upload session {} finalized as document {} ({} chunks, {} bytes)",
+                    sessionId, document.getId(), chunks.size(), fileSize);
+            return documentMapper.from(document);
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to finalize upload : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void abort(UUID sessionId) {
+        DocumentUploadSession session = findActiveSession(sessionId);
+        if (sessionRepository.transition(sessionId, UploadSessionStatus.ACTIVE,
+                UploadSessionStatus.ABORTED, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Upload session is no longer active");
+        }
+        abortStorageUpload(session);
+    }
+
+    /**
+     * Aborts the sessions nobody has touched for {@code documents.upload.session.ttl-hours}, so the
+     * chunks they staged do not stay in storage forever.
+     */
+    @Scheduled(fixedDelayString = "${documents.upload.session.sweep-interval-ms:900000}",
+            initialDelayString = "${documents.upload.session.sweep-initial-delay-ms:60000}")
+    public void expireStaleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        List<DocumentUploadSession> stale = sessionRepository.findStale(EXPIRABLE_STATUSES, cutoff,
+                PageRequest.of(0, sweepBatchSize));
+        for (DocumentUploadSession session : stale) {
+            // Skipped when a chunk arrived meanwhile or another instance got to it first
+            if (sessionRepository.expire(session.getId(), EXPIRABLE_STATUSES, cutoff, LocalDateTime.now()) > 0) {
+                abortStorageUpload(session);
+                log.info("Upload session {} expired after {} hours without activity", session.getId(), sessionTtlHours);
+            }
+        }
+    }
+
+    private void abortStorageUpload(DocumentUploadSession session) {
+        try {
+            documentsStorageService.abortChunkedUpload(session.getFilePath(), session.getUploadId());
+        } catch (Exception e) {
+            log.warn("Failed to abort storage upload for session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private SortedMap<Integer, Long> listChunks(DocumentUploadSession session) {
+        try {
+            return documentsStorageService.listUploadedChunks(session.getFilePath(), session.getUploadId());
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to list received chunks : " + e.getMessage());
+        }
+    }
+
+    private DocumentUploadSession findSession(UUID sessionId) {
+        return sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new DocumentNotFoundException("Upload session not found"));
+    }
+
+    private DocumentUploadSession findActiveSession(UUID sessionId) {
+        DocumentUploadSession session = findSession(sessionId);
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new IllegalStateException("Upload session is " + session.getStatus());
+        }
+        return session;
+    }
+
+    private UploadSessionResponseDto toResponse(DocumentUploadSession session, Map<Integer, Long> chunks) {
+        return new UploadSessionResponseDto(
+                session.getId(),
+                session.getUserId(),
+                session.getOriginalFilename(),
+                session.getStatus(),
+                new ArrayList<>(chunks.keySet()),
+                chunks.values().stream().mapToLong(Long::longValue).sum(),
+                session.getDocumentId());
+    }
+}
@@ -4,22 +4,58 @@ import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
 import com.marcos.studyasistant.documentservice.entity.DocumentProcessingLog;
 import com.marcos.studyasistant.documentservice.reposiroty.DocumentProcessingLogRepository;
 import com.marcos.studyasistant.documentservice.service.DocumentsProcessingLogService;
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Write-behind log appender: processing steps are buffered in memory and inserted in JDBC
+ * batches, by size or by interval, so logging does not cost a round-trip per step.
+ * Each batch is its own transaction, independent of the caller's.
+ */
 @Service
-@Transactional
+@Slf4j
 public class DocumentsProcessingLogServiceImpl implements DocumentsProcessingLogService {
 
+    /**
+     * What to do when the buffer is full: write the record synchronously, or drop it.
+     */
+    public enum OverflowPolicy {
+        WRITE_THROUGH, DROP
+    }
+
     private final DocumentProcessingLogRepository logRepository;
+    private final Executor flushExecutor;
+    private final BlockingQueue<DocumentProcessingLog> buffer;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong droppedLogs = new AtomicLong();
 
-    public DocumentsProcessingLogServiceImpl(DocumentProcessingLogRepository logRepository) {
+    public DocumentsProcessingLogServiceImpl(DocumentProcessingLogRepository logRepository,
+                                             @Qualifier("processingLogFlushExecutor") Executor flushExecutor,
+                                             @Value("${documents.processing-log.buffer-capacity:10000}") int bufferCapacity,
+                                             @Value("${documents.processing-log.batch-size:50}") int batchSize,
+                                             @Value("${documents.processing-log.overflow-policy:WRITE_THROUGH}") OverflowPolicy overflowPolicy) {
         this.logRepository = logRepository;
+        this.flushExecutor = flushExecutor;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
     }
 
     @Override
@@ -36,24 +72,107 @@ public class DocumentsProcessingLogServiceImpl implements DocumentsProcessingLog
                                                    String status,
                                                    Map<String, Object> details,
                                                    Long processingTimeMs) {
-        DocumentProcessingLog log = new DocumentProcessingLog();
-        log.setDocument(document);
-        log.setProcessingStep(processingStep);
-        log.setStatus(status);
-        log.setDetails(details != null ? details : new HashMap<>());
-        log.setProcessingTimeMs(processingTimeMs != null ? processingTimeMs.intValue() : null);
+        DocumentProcessingLog record = new DocumentProcessingLog();
+        record.setDocument(document);
+        record.setProcessingStep(processingStep);
+        record.setStatus(status);
+        record.setDetails(details != null ? details : new HashMap<>());
+        record.setProcessingTimeMs(processingTimeMs != null ? processingTimeMs.intValue() : null);
+        record.setCreatedAt(LocalDateTime.now());
 
-        return logRepository.save(log);
+        if (!buffer.offer(record)) {
+            handleOverflow(record);
+        } else if (buffer.size() >= batchSize) {
+            flushExecutor.execute(this::flushAvailable);
+        }
+        return record;
+    }
+
+    @Override
+    public void flush() {
+        flushLock.lock();
+        try {
+            drainAll();
+        } finally {
+            flushLock.unlock();
+        }
     }
 
     @Override
     public List<DocumentProcessingLog> getDocumentProcessingHistory(UUID documentId) {
+        flush();
         return logRepository.findByDocumentIdOrderByCreatedAtDesc(documentId);
     }
 
     @Override
     public List<DocumentProcessingLog> getRecentErrors(int hoursBack) {
+        flush();
         LocalDateTime since = LocalDateTime.now().minusHours(hoursBack);
         return logRepository.findErrorsSince(since);
     }
+
+    @Scheduled(fixedDelayString = "${documents.processing-log.flush-interval-ms:500}")
+    public void flushAvailable() {
+        // A flush already in progress will pick up whatever is buffered
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drainAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (droppedLogs.get() > 0) {
+            log.warn("{} processing log records were dropped because the buffer was full", droppedLogs.get());
+        }
+    }
+
+    private void drainAll() {
+        List<DocumentProcessingLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                logRepository.saveAll(batch);
+            } catch (Exception e) {
+                log.warn("Failed to write {} processing log records as a batch, retrying one by one: {}",
+                        batch.size(), e.getMessage());
+                saveEach(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    // One bad record (e.g. its document was deleted meanwhile) must not take the rest of the batch with it
+    private void saveEach(List<DocumentProcessingLog> batch) {
+        for (DocumentProcessingLog record : batch) {
+            // The failed batch already assigned an id; a record with an id would be merged, not inserted
+            record.setId(null);
+            save(record);
+        }
+    }
+
+    // Logging is best effort: a record that cannot be written must not fail the processing step
+    private void save(DocumentProcessingLog record) {
+        try {
+            logRepository.save(record);
+        } catch (Exception e) {
+            log.error("Failed to write processing log record {} for document {}: {}",
+                    record.getProcessingStep(), record.getDocument().getId(), e.getMessage(), e);
+        }
+    }
+
+    private void handleOverflow(DocumentProcessingLog record) {
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            long dropped = droppedLogs.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                log.warn("Processing log buffer full, dropping records ({} dropped so far)", dropped);
+            }
+            return;
+        }
+        save(record);
+    }
 }
@@ -1,7 +1,12 @@
 package com.marcos.studyasistant.documentservice.service.impl;
 
+import com.marcos.studyasistant.documentservice.dto.ExtractedTextDto;
+import com.marcos.studyasistant.documentservice.dto.ExtractionResultDto;
 import com.marcos.studyasistant.documentservice.dto.PageCountResultDto;
+import com.marcos.studyasistant.documentservice.dto.PdfExtractionResultDto;
+import com.marcos.studyasistant.documentservice.dto.PdfPageRangeResultDto;
 import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.ExtractionCacheEntry;
 import com.marcos.studyasistant.documentservice.dto.LanguageDetectionResultDto;
 import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
 import com.marcos.studyasistant.documentservice.exceptions.DocumentNotFoundException;
@@ -9,36 +14,92 @@ import com.marcos.studyasistant.documentservice.exceptions.DocumentProcessingExc
 import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
 import com.marcos.studyasistant.documentservice.service.*;
 import com.marcos.studyasistant.documentservice.utils.HashUtil;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.PagedText;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-
-import static com.google.common.io.Files.getFileExtension;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class DocumentsProcessingServiceImpl implements DocumentsProcessingService {
 
+    private static final String PDF_MIME_TYPE = "application/pdf";
+
     private final DocumentsRepository documentsRepository;
     private final DocumentsStorageService documentsStorageService;
     private final DocumentsProcessingLogService documentsProcessingLogService;
     private final DocumentTagService documentTagService;
     private final LanguageDetectionService languageDetectionService;
     private final PageCountService pageCountService;
-    private final HashUtil hashUtil;
+    private final TextExtractionService textExtractionService;
+    private final AutoTaggingService autoTaggingService;
+    private final PdfTextExtractionService pdfTextExtractionService;
+    private final DocumentSegmentService documentSegmentService;
     private final DocumentEventPublisher documentEventPublisher;
+    private final ExtractionCacheService extractionCacheService;
+    private final DocumentSearchService documentSearchService;
+    private final Executor documentStageExecutor;
+
+    @Value("${documents.processing.stage.text-storage.timeout-ms:${documents.processing.stage.timeout-ms:60000}}")
+    private long textStorageTimeoutMs;
+
+    @Value("${documents.processing.stage.text-segmentation.timeout-ms:${documents.processing.stage.timeout-ms:60000}}")
+    private long segmentationTimeoutMs;
+
+    @Value("${documents.processing.stage.language-detection.timeout-ms:${documents.processing.stage.timeout-ms:60000}}")
+    private long languageTimeoutMs;
+
+    @Value("${documents.processing.stage.page-count.timeout-ms:${documents.processing.stage.timeout-ms:60000}}")
+    private long pageCountTimeoutMs;
+
+    @Value("${documents.processing.stage.auto-tagging.timeout-ms:${documents.processing.stage.timeout-ms:60000}}")
+    private long taggingTimeoutMs;
+
+    @Value("${documents.processing.stage.search-index.timeout-ms:${documents.processing.stage.timeout-ms:60000}}")
+    private long searchIndexTimeoutMs;
+
+    // How long a document waits for its interrupted stages to return before releasing the text
+    @Value("${documents.processing.stage.stop-grace-ms:10000}")
+    private long stageStopGraceMs;
+
+    // The completion event carries the start of the text; consumers needing all of it read the stored copy
+    @Value("${documents.events.extracted-text-max-chars:100000}")
+    private int eventTextMaxChars;
 
     public DocumentsProcessingServiceImpl(DocumentsRepository documentsRepository,
                                            DocumentsStorageService documentsStorageService,
@@ -46,16 +107,28 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
                                           DocumentTagService documentTagService,
                                           LanguageDetectionService languageDetectionService,
                                           PageCountService pageCountService,
-                                          HashUtil hashUtil,
-                                          DocumentEventPublisher documentEventPublisher) {
+                                          TextExtractionService textExtractionService,
+                                          AutoTaggingService autoTaggingService,
+                                          PdfTextExtractionService pdfTextExtractionService,
+                                          DocumentSegmentService documentSegmentService,
+                                          DocumentEventPublisher documentEventPublisher,
+                                          ExtractionCacheService extractionCacheService,
+                                          DocumentSearchService documentSearchService,
+                                          @Qualifier("documentStageExecutor") Executor documentStageExecutor) {
         this.documentsRepository = documentsRepository;
         this.documentsStorageService = documentsStorageService;
         this.documentsProcessingLogService = documentsProcessingLogService;
         this.documentTagService = documentTagService;
         this.languageDetectionService = languageDetectionService;
         this.pageCountService = pageCountService;
-        this.hashUtil = hashUtil;
+        this.textExtractionService = textExtractionService;
+        this.autoTaggingService = autoTaggingService;
+        this.pdfTextExtractionService = pdfTextExtractionService;
+        this.documentSegmentService = documentSegmentService;
         this.documentEventPublisher = documentEventPublisher;
+        this.extractionCacheService = extractionCacheService;
+        this.documentSearchService = documentSearchService;
+        this.documentStageExecutor = documentStageExecutor;
     }
 
     @Override
@@ -65,8 +138,7 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
         DocumentEntity document = documentsRepository.findById(documentId)
                 .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
 
-        File tempFile = null;
-
+        ExtractionResultDto extraction = null;
         try {
             log.info("Starting processing for document: {}", document.getId());
 
@@ -74,95 +146,346 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
             documentsProcessingLogService.logProcessingStep(document, "PROCESSING_STARTED", "SUCCESS",
                     Map.of("originalFilename", document.getOriginalFilename()));
 
-            tempFile = downloadToTempFile(document.getFilePath());
-
-            log.info("Downloading document from Minio: {}", document.getFilePath());
-
             // Update document status to PROCESSING
             document.setStatus(ProcessingStatus.PROCESSING);
             documentsRepository.save(document);
 
-            // Extract text from the document
+            // A previous, failed run may have left generated tags and segments behind
+            documentTagService.deleteAutoGeneratedTags(document);
+            documentSegmentService.deleteSegments(document.getId());
+
+            // The same bytes were processed before: reuse that result instead of extracting again
+            Optional<ExtractionCacheEntry> cached = extractionCacheService.find(document.getHash());
+            if (cached.isPresent() && completeFromCache(document, cached.get(), startTime)) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // Single pass over the stored object: text, content hash and metadata together
+            log.info("Streaming document from Minio: {}", document.getFilePath());
             long extractionStartTime = System.currentTimeMillis();
-            String extractedText = extractTextFromDocument(tempFile);
+            extraction = ingestDocument(document);
+            SpillingTextBuffer extractedText = extraction.extractedText();
             long extractionTime = System.currentTimeMillis() - extractionStartTime;
 
             log.info("Text extracted from document {}: {} characters", document.getId(), extractedText.length());
 
             // Log the text extraction step
-            document.setExtractedText(extractedText);
             documentsProcessingLogService.logProcessingStep(document, "TEXT_EXTRACTION", "SUCCESS",
-                    Map.of("textLength", extractedText.length()), extractionTime);
+                    Map.of("textLength", extractedText.length(), "spilled", extractedText.isSpilled()), extractionTime);
+            for (PdfPageRangeResultDto range : extraction.pageRanges()) {
+                documentsProcessingLogService.logProcessingStep(document, "TEXT_EXTRACTION_RANGE", "SUCCESS",
+                        Map.of("startPage", range.startPage(),
+                                "endPage", range.endPage(),
+                                "textLength", range.characters()), range.durationMs());
+            }
 
-            // hash the extracted text + original filename to prevent duplicates
-            String hash = document.getOriginalFilename() + extractedText;
-            String documentHash = hashUtil.generateSHA256Hash(hash);
-            document.setHash(documentHash);
+            // The fingerprint is taken at upload; the ingestion pass only verifies it
+            String hashStatus = verifyContentHash(document, extraction.contentHash());
+            documentsProcessingLogService.logProcessingStep(document, "DOCUMENT_HASH", hashStatus,
+                    Map.of("hash", document.getHash()), extractionTime);
+
+            // The remaining steps only share the extraction result, so they run side by side and the
+            // document is updated once all of them are done. Only storing the text is mandatory.
+            List<Long> pageOffsets = extraction.pageOffsets();
+            Metadata metadata = extraction.metadata();
+            Stages stages = new Stages();
+            CompletableFuture<String> textStorage;
+            CompletableFuture<String> language;
+            CompletableFuture<Integer> pageCount;
+            CompletableFuture<Map<String, BigDecimal>> tags;
+            try {
+                textStorage = runStage(document, "TEXT_STORAGE", textStorageTimeoutMs,
+                        stages, true, null, () -> storeExtractedText(document, extractedText));
+                CompletableFuture<Integer> segmentation = runStage(document, "TEXT_SEGMENTATION", segmentationTimeoutMs,
+                        stages, false, 0, () -> storeSegments(document, extractedText, pageOffsets));
+                language = runStage(document, "LANGUAGE_DETECTION", languageTimeoutMs,
+                        stages, false, "unknown", () -> detectDocumentLanguage(document, extractedText));
+                pageCount = runStage(document, "PAGE_COUNT", pageCountTimeoutMs,
+                        stages, false, null, () -> countDocumentPages(document, metadata));
+                tags = runStage(document, "AUTO_TAGGING", taggingTimeoutMs,
+                        stages, false, Map.of(), () -> tagDocument(document, extractedText));
+
+                CompletableFuture.allOf(textStorage, segmentation, language, pageCount, tags).join();
+
+                // Stemming depends on the language, so the pages are indexed once both are known
+                CompletableFuture<String> detectedLanguage = language;
+                runStage(document, "SEARCH_INDEX", searchIndexTimeoutMs, stages, false, 0,
+                        () -> indexForSearch(document, detectedLanguage.join())).join();
+            } finally {
+                // Whether the stages succeeded or not, nothing one of them could still write may land
+                // after the document is marked completed or failed, nor after its text is released
+                stopStages(document, stages);
+            }
 
-            documentsProcessingLogService.logProcessingStep(document, "DOCUMENT_HASH", "SUCCESS",
-                    Map.of("textLength", extractedText.length()), extractionTime);
+            document.setExtractedTextPath(textStorage.join());
+            document.setExtractedTextLength(extractedText.length());
+            document.setLanguageDetected(language.join());
+            document.setPageCount(pageCount.join());
 
+            completeDocument(document, extractedText, stages.outcomes, false, startTime);
 
-            // Detect language
-            long languageStart = System.currentTimeMillis();
-            String language = detectDocumentLanguage(document, extractedText);
-            long languageTime = System.currentTimeMillis() - languageStart;
+            // Only a clean run is worth reusing; a stage that fell back would be served to every copy
+            if (stages.outcomes.values().stream().allMatch("SUCCESS"::equals)) {
+                extractionCacheService.store(document, extractedText.length(), pageOffsets, tags.join());
+            }
 
-            log.info("Language detected for document {}: {}", document.getId(), language);
+        } catch (Exception e) {
+            Exception cause = unwrap(e) instanceof Exception unwrapped ? unwrapped : e;
+            handleProcessingError(document, cause, System.currentTimeMillis() - startTime);
+            return CompletableFuture.failedFuture(cause);
+        } finally {
+            if (extraction != null) {
+                extraction.extractedText().discard();
+            }
+        }
 
-            // Log the language detection step
-            document.setLanguageDetected(language);
-            documentsProcessingLogService.logProcessingStep(document, "LANGUAGE_DETECTION", "SUCCESS",
-                    Map.of("detectedLanguage", language), languageTime);
+        return CompletableFuture.completedFuture(null);
+    }
 
-            // Count pages in the document
-            long pageCountStart = System.currentTimeMillis();
-            Integer pageCount = countPages(document, tempFile);
-            long pageCountTime = System.currentTimeMillis() - pageCountStart;
+    /**
+     * Completes a document from the result cached for its content hash: the text is copied inside
+     * the storage and segmented again, everything else is taken from the cache as it is. Returns
+     * {@code false}, leaving the document to a normal extraction, when the cached text can no longer
+     * be read or copied (the entry may have been evicted meanwhile).
+     */
+    private boolean completeFromCache(DocumentEntity document, ExtractionCacheEntry entry, long startTime)
+            throws IOException {
+        Stages stages = new Stages();
+        long loadStart = System.currentTimeMillis();
+        SpillingTextBuffer cachedText;
+        try {
+            cachedText = extractionCacheService.loadText(entry);
+        } catch (IOException e) {
+            log.warn("Cached extraction of document {} is unreadable, extracting again: {}",
+                    document.getId(), e.getMessage());
+            return false;
+        }
 
-            // Log the page count step
-            document.setPageCount(pageCount);
-            documentsProcessingLogService.logProcessingStep(document, "PAGE_COUNT", "SUCCESS",
-                    Map.of("pageCount", pageCount), pageCountTime);
+        try {
+            log.info("Reusing cached extraction for document {}: {} characters", document.getId(), cachedText.length());
+            documentsProcessingLogService.logProcessingStep(document, "TEXT_EXTRACTION", "SUCCESS",
+                    Map.of("textLength", cachedText.length(), "cached", true), System.currentTimeMillis() - loadStart);
+
+            List<Long> pageOffsets = entry.getPageOffsets() != null ? entry.getPageOffsets() : List.of();
+            CompletableFuture<String> textStorage;
+            try {
+                // Not mandatory here: without the copy the document is simply extracted, and the segments
+                // stored meanwhile are replaced by that run
+                textStorage = runStage(document, "TEXT_STORAGE", textStorageTimeoutMs,
+                        stages, false, null, () -> copyCachedText(document, entry));
+                CompletableFuture<Integer> segmentation = runStage(document, "TEXT_SEGMENTATION", segmentationTimeoutMs,
+                        stages, false, 0, () -> storeSegments(document, cachedText, pageOffsets));
+                CompletableFuture.allOf(textStorage, segmentation).join();
+                if (textStorage.join() == null) {
+                    log.warn("Cached text of document {} could not be copied, extracting again", document.getId());
+                    return false;
+                }
+                runStage(document, "SEARCH_INDEX", searchIndexTimeoutMs, stages, false, 0,
+                        () -> indexForSearch(document, entry.getLanguageDetected())).join();
+            } finally {
+                stopStages(document, stages);
+            }
 
-            // Generar tags automáticos
-            long taggingStart = System.currentTimeMillis();
-            Map<String, BigDecimal> autoTags = generateAutomaticTags(extractedText, document.getMimeType());
-            documentTagService.addAutoGeneratedTags(document, autoTags);
-            long taggingTime = System.currentTimeMillis() - taggingStart;
+            if (entry.getTags() != null && !entry.getTags().isEmpty()) {
+                documentTagService.addAutoGeneratedTags(document, entry.getTags());
+            }
 
-            // Log the auto-tagging step
-            documentsProcessingLogService.logProcessingStep(document, "AUTO_TAGGING", "SUCCESS",
-                    Map.of("tagsGenerated", autoTags.size()), taggingTime);
+            document.setExtractedTextPath(textStorage.join());
+            document.setExtractedTextLength(cachedText.length());
+            document.setLanguageDetected(entry.getLanguageDetected());
+            document.setPageCount(entry.getPageCount());
 
-            // Finalizar procesamiento
-            document.setStatus(ProcessingStatus.COMPLETED);
-            document.setProcessedAt(LocalDateTime.now());
-            documentsRepository.save(document);
+            completeDocument(document, cachedText, stages.outcomes, true, startTime);
+            return true;
+        } finally {
+            cachedText.discard();
+        }
+    }
 
-            log.info("Document {} processed successfully", document.getId());
+    private void completeDocument(DocumentEntity document, SpillingTextBuffer extractedText,
+                                  Map<String, String> stageOutcomes, boolean cacheHit, long startTime)
+            throws IOException {
+        // Finalizar procesamiento
+        document.setStatus(ProcessingStatus.COMPLETED);
+        document.setProcessedAt(LocalDateTime.now());
+        documentsRepository.save(document);
 
-            // Log the completion of the processing step
-            long totalTime = System.currentTimeMillis() - startTime;
-            documentsProcessingLogService.logProcessingStep(document, "PROCESSING_COMPLETED", "SUCCESS",
-                    Map.of("totalProcessingTimeMs", totalTime), totalTime);
+        log.info("Document {} processed successfully", document.getId());
 
-            // Publish event for AI processing
-            documentEventPublisher.publishDocumentProcessingCompleted(document);
+        // Log the completion of the processing step
+        long totalTime = System.currentTimeMillis() - startTime;
+        documentsProcessingLogService.logProcessingStep(document, "PROCESSING_COMPLETED", "SUCCESS",
+                Map.of("totalProcessingTimeMs", totalTime, "stages", stageOutcomes, "cacheHit", cacheHit), totalTime);
 
+        // Publish event for AI processing
+        documentEventPublisher.publishDocumentProcessingCompleted(document, extractedText.readPrefix(eventTextMaxChars));
+    }
 
-        } catch (Exception e) {
-            handleProcessingError(document, e, System.currentTimeMillis() - startTime);
-        } finally {
-            if (tempFile != null && tempFile.exists()) {
-                if (!tempFile.delete()) {
-                    log.warn("Failed to delete temporary file: {}", tempFile.getAbsolutePath());
+    /**
+     * Runs one post-extraction stage on the stage pool with its own timeout and records how it ended
+     * (SUCCESS, ERROR or TIMEOUT). A failed optional stage yields {@code fallback}; a failed mandatory
+     * stage fails the returned future. A stage that times out is interrupted, and one the pool has no
+     * room for fails rather than running on the calling worker.
+     */
+    private <T> CompletableFuture<T> runStage(DocumentEntity document, String stage, long timeoutMs,
+                                              Stages stages, boolean mandatory, T fallback,
+                                              Supplier<T> work) {
+        long stageStart = System.currentTimeMillis();
+        Map<String, String> outcomes = stages.outcomes;
+        StageTask<T> task = new StageTask<>(work);
+        stages.tasks.add(task);
+        try {
+            documentStageExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.rejected(new DocumentProcessingException("No capacity left to run " + stage));
+        }
+
+        return task.result
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    if (error == null) {
+                        outcomes.put(stage, "SUCCESS");
+                        return result;
+                    }
+
+                    // Stop the body as well, not just the wait for it
+                    task.cancel(true);
+                    Throwable cause = unwrap(error);
+                    boolean timedOut = cause instanceof TimeoutException;
+                    outcomes.put(stage, timedOut ? "TIMEOUT" : "ERROR");
+                    String message = timedOut
+                            ? "Stage timed out after " + timeoutMs + " ms"
+                            : String.valueOf(cause.getMessage());
+                    log.warn("Stage {} failed for document {}: {}", stage, document.getId(), message);
+                    documentsProcessingLogService.logProcessingStep(document, stage, mandatory ? "ERROR" : "WARNING",
+                            Map.of("outcome", outcomes.get(stage), "errorMessage", message),
+                            System.currentTimeMillis() - stageStart);
+
+                    if (mandatory) {
+                        throw cause instanceof DocumentProcessingException processingException
+                                ? processingException
+                                : new DocumentProcessingException(stage + " failed: " + message);
+                    }
+                    return fallback;
+                });
+    }
+
+    /**
+     * Interrupts the stages of a run that are still going and waits, up to the grace period, for
+     * their bodies to return. Stage bodies check for the interruption before writing anything.
+     * Stopping a run twice does nothing the second time.
+     */
+    private void stopStages(DocumentEntity document, Stages stages) {
+        if (stages.stopped) {
+            return;
+        }
+        stages.stopped = true;
+        stages.tasks.forEach(task -> task.cancel(true));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stageStopGraceMs);
+        for (StageTask<?> task : stages.tasks) {
+            try {
+                if (!task.ended.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    log.warn("A stage of document {} did not stop within {} ms", document.getId(), stageStopGraceMs);
+                    return;
                 }
-                log.info("Deleting temporary file: {}", tempFile.getAbsolutePath());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
+    }
 
-        return CompletableFuture.completedFuture(null);
+    // Set on a stage's thread once the stage has timed out or its run has ended
+    private void ensureNotCancelled(String stage) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException(stage + " was cancelled");
+        }
+    }
+
+    private Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private String storeExtractedText(DocumentEntity document, SpillingTextBuffer extractedText) {
+        // Keep the text out of the documents row: compressed object next to the original
+        long storeStart = System.currentTimeMillis();
+        String textPath;
+        try {
+            textPath = documentsStorageService.storeExtractedText(document.getFilePath(), extractedText);
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to store extracted text: " + e.getMessage());
+        }
+        ensureNotCancelled("TEXT_STORAGE");
+        documentsProcessingLogService.logProcessingStep(document, "TEXT_STORAGE", "SUCCESS",
+                Map.of("textPath", textPath), System.currentTimeMillis() - storeStart);
+        return textPath;
+    }
+
+    private String copyCachedText(DocumentEntity document, ExtractionCacheEntry entry) {
+        long copyStart = System.currentTimeMillis();
+        String textPath;
+        try {
+            textPath = documentsStorageService.copyExtractedText(entry.getTextPath(), document.getFilePath());
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to copy cached text: " + e.getMessage());
+        }
+        ensureNotCancelled("TEXT_STORAGE");
+        documentsProcessingLogService.logProcessingStep(document, "TEXT_STORAGE", "SUCCESS",
+                Map.of("textPath", textPath, "cached", true), System.currentTimeMillis() - copyStart);
+        return textPath;
+    }
+
+    private int storeSegments(DocumentEntity document, SpillingTextBuffer extractedText, List<Long> pageOffsets) {
+        long segmentationStart = System.currentTimeMillis();
+        int segments;
+        try {
+            segments = documentSegmentService.storeSegments(document, extractedText, pageOffsets);
+        } catch (IOException e) {
+            throw new DocumentProcessingException("Failed to read extracted text: " + e.getMessage());
+        }
+        documentsProcessingLogService.logProcessingStep(document, "TEXT_SEGMENTATION", "SUCCESS",
+                Map.of("segments", segments, "paged", !pageOffsets.isEmpty()),
+                System.currentTimeMillis() - segmentationStart);
+        return segments;
+    }
+
+    private int indexForSearch(DocumentEntity document, String language) {
+        long indexStart = System.currentTimeMillis();
+        ensureNotCancelled("SEARCH_INDEX");
+        int segments = documentSearchService.indexDocument(document.getId(), language);
+        documentsProcessingLogService.logProcessingStep(document, "SEARCH_INDEX", "SUCCESS",
+                Map.of("segments", segments, "language", String.valueOf(language)),
+                System.currentTimeMillis() - indexStart);
+        return segments;
+    }
+
+    private Integer countDocumentPages(DocumentEntity document, Metadata metadata) {
+        long pageCountStart = System.currentTimeMillis();
+        Integer pageCount = countPages(document, metadata);
+        Map<String, Object> logDetails = new HashMap<>();
+        logDetails.put("pageCount", pageCount);
+        documentsProcessingLogService.logProcessingStep(document, "PAGE_COUNT", pageCount != null ? "SUCCESS" : "WARNING",
+                logDetails, System.currentTimeMillis() - pageCountStart);
+        return pageCount;
+    }
+
+    private Map<String, BigDecimal> tagDocument(DocumentEntity document, SpillingTextBuffer extractedText) {
+        long taggingStart = System.currentTimeMillis();
+        Map<String, BigDecimal> autoTags;
+        try (Reader text = extractedText.openReader()) {
+            autoTags = autoTaggingService.generateTags(text, document.getMimeType());
+        } catch (IOException e) {
+            throw new DocumentProcessingException("Failed to read extracted text: " + e.getMessage());
+        }
+        ensureNotCancelled("AUTO_TAGGING");
+        documentTagService.addAutoGeneratedTags(document, autoTags);
+        documentsProcessingLogService.logProcessingStep(document, "AUTO_TAGGING", "SUCCESS",
+                Map.of("tagsGenerated", autoTags.size()), System.currentTimeMillis() - taggingStart);
+        return autoTags;
     }
 
     private void handleProcessingError(DocumentEntity document, Exception e, long processingTime) {
@@ -176,44 +499,107 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
                         "errorClass", e.getClass().getSimpleName(),
                         "stackTrace", Arrays.toString(e.getStackTrace()).substring(0, Math.min(1000, Arrays.toString(e.getStackTrace()).length()))
                 ), processingTime);
+        // Failure logs must not sit in the buffer if the worker or the JVM goes down next
+        documentsProcessingLogService.flush();
 
         log.error("Error processing document {}: {}", document.getId(), e.getMessage(), e);
     }
 
-    private Map<String, BigDecimal> generateAutomaticTags(String text, String mimeType) {
-        Map<String, BigDecimal> tags = new HashMap<>();
-
-        // Tags basados en tipo de archivo
-        if (mimeType.contains("pdf")) {
-            tags.put("pdf", new BigDecimal("1.00"));
-        } else if (mimeType.contains("word")) {
-            tags.put("document", new BigDecimal("1.00"));
+    private String verifyContentHash(DocumentEntity document, String contentHash) {
+        if (document.getHash() == null) {
+            // Chunked uploads are only fingerprinted here, after the user may already have the file
+            if (documentsRepository.existsByUserIdAndHash(document.getUserId(), contentHash)) {
+                log.warn("Document {} duplicates another upload of the same user; it keeps no hash", document.getId());
+                return "WARNING";
+            }
+            document.setHash(contentHash);
+            return "SUCCESS";
         }
-
-        // Tags basados en contenido (ejemplo básico)
-        String lowerText = text.toLowerCase();
-        if (lowerText.contains("contract") || lowerText.contains("agreement")) {
-            tags.put("contract", new BigDecimal("0.85"));
+        if (!document.getHash().equals(contentHash)) {
+            log.warn("Stored content of document {} does not match its upload fingerprint", document.getId());
+            return "WARNING";
         }
-        if (lowerText.contains("invoice") || lowerText.contains("bill")) {
-            tags.put("financial", new BigDecimal("0.90"));
+        return "SUCCESS";
+    }
+
+    /**
+     * Reads the stored object once. The same stream feeds Tika, the SHA-256 digest and
+     * the metadata capture, so the original never needs to be copied to a temp file.
+     * PDFs are the exception: they are spooled to disk (as Tika would do anyway) so that
+     * large ones can be split into page ranges and extracted in parallel.
+     */
+    private ExtractionResultDto ingestDocument(DocumentEntity document) throws DocumentProcessingException {
+        MessageDigest digest = HashUtil.newSHA256Digest();
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, document.getOriginalFilename());
+        metadata.set(Metadata.CONTENT_TYPE, document.getMimeType());
+
+        if (PDF_MIME_TYPE.equalsIgnoreCase(document.getMimeType())) {
+            return ingestPdf(document, digest, metadata);
         }
-        if (lowerText.contains("report") || lowerText.contains("analysis")) {
-            tags.put("report", new BigDecimal("0.80"));
+
+        try (InputStream minioStream = documentsStorageService.downloadDocument(document.getFilePath());
+             DigestInputStream digestStream = new DigestInputStream(minioStream, digest)) {
+
+            ExtractedTextDto extracted = textExtractionService.extractPagedText(digestStream, metadata);
+
+            // Parsers may stop before EOF; drain the rest so the hash covers every byte
+            try {
+                digestStream.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                extracted.text().discard();
+                throw e;
+            }
+
+            return new ExtractionResultDto(extracted.text(), HashUtil.toHex(digest), metadata,
+                    extracted.pageOffsets(), List.of());
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to extract document content :" + e);
         }
+    }
 
-        log.info("Generated {} automatic tags for document: {}", tags.size(), text.length() > 50 ? text.substring(0, 50) + "..." : text);
+    private ExtractionResultDto ingestPdf(DocumentEntity document, MessageDigest digest, Metadata metadata) {
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("document-", ".pdf");
+            try (InputStream minioStream = documentsStorageService.downloadDocument(document.getFilePath());
+                 DigestInputStream digestStream = new DigestInputStream(minioStream, digest)) {
+                Files.copy(digestStream, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String contentHash = HashUtil.toHex(digest);
+
+            long sizeBytes = document.getFileSize() != null ? document.getFileSize() : Files.size(spooled);
+            Optional<PdfExtractionResultDto> ranged = pdfTextExtractionService.extractInRanges(spooled, sizeBytes);
+            if (ranged.isPresent()) {
+                metadata.set(PagedText.N_PAGES, ranged.get().pageCount());
+                return new ExtractionResultDto(ranged.get().text(), contentHash, metadata,
+                        ranged.get().pageOffsets(), ranged.get().ranges());
+            }
 
-        return tags;
+            try (InputStream pdfStream = TikaInputStream.get(spooled)) {
+                ExtractedTextDto extracted = textExtractionService.extractPagedText(pdfStream, metadata);
+                return new ExtractionResultDto(extracted.text(), contentHash, metadata,
+                        extracted.pageOffsets(), List.of());
+            }
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to extract document content :" + e);
+        } finally {
+            deleteQuietly(spooled);
+        }
     }
 
-    private String extractTextFromDocument(File tempFile) throws Exception {
-        Tika tika = new Tika();
-        FileInputStream inputStream = new FileInputStream(tempFile);
-        return tika.parseToString(inputStream);
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", file, e.getMessage());
+        }
     }
 
-    private String detectDocumentLanguage(DocumentEntity document, String extractedText) {
+    private String detectDocumentLanguage(DocumentEntity document, SpillingTextBuffer extractedText) {
         try {
             LanguageDetectionResultDto result = languageDetectionService.detectLanguage(extractedText);
 
@@ -226,6 +612,9 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
             if (result.getReason() != null) {
                 logDetails.put("reason", result.getReason());
             }
+            if (result.getWindows() != null && !result.getWindows().isEmpty()) {
+                logDetails.put("windows", result.getWindows());
+            }
 
             String logStatus = "SUCCESS";
             if ("unknown".equals(result.getLanguage())) {
@@ -254,19 +643,22 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
         }
     }
 
-    private Integer countPages(DocumentEntity document, File tempFile) {
+    private Integer countPages(DocumentEntity document, Metadata metadata) {
         try {
-            FileInputStream inputStream = new FileInputStream(tempFile);
-            PageCountResultDto pageCount = pageCountService.countPagesDetailed(document, inputStream);
-
-            if (pageCount != null) {
-                log.info("Page count for document {}: {} pages ({})",
-                        document.getId(), pageCount.getPageCount(), document.getMimeType());
-            } else {
-                log.info("Could not count pages for document {}: unsupported type {}",
-                        document.getId(), document.getMimeType());
+            PageCountResultDto pageCount = pageCountService.countPagesFromMetadata(document, metadata);
+
+            // Only re-open the original when the extraction metadata carries no page count
+            if (pageCount == null) {
+                log.debug("No page count in metadata for document {}, falling back to dedicated parser",
+                        document.getId());
+                try (InputStream inputStream = documentsStorageService.downloadDocument(document.getFilePath())) {
+                    pageCount = pageCountService.countPagesDetailed(document, inputStream);
+                }
             }
 
+            log.info("Page count for document {}: {} pages ({}, {})",
+                    document.getId(), pageCount.getPageCount(), document.getMimeType(), pageCount.getMethod());
+
             return pageCount.getPageCount();
 
         } catch (Exception e) {
@@ -275,22 +667,55 @@ public class DocumentsProcessingServiceImpl implements DocumentsProcessingServic
         }
     }
 
-    private File downloadToTempFile(String filePath) throws DocumentProcessingException {
-        try {
-            // Crear archivo temporal con extensión apropiada
-            File tempFile = Files.createTempFile("document_", getFileExtension(filePath)).toFile();
+    // The stages started for one processing run: how each ended, and their tasks so they can be stopped
+    private static final class Stages {
+        private final Map<String, String> outcomes = new ConcurrentHashMap<>();
+        private final List<StageTask<?>> tasks = new ArrayList<>();
+        // Only the worker that started the stages stops them
+        private boolean stopped;
+    }
+
+    /**
+     * A stage body on the stage pool. Cancelling it interrupts the body, and {@code ended} tells when
+     * the body has really returned, which neither a timed-out nor a cancelled future does.
+     */
+    private static final class StageTask<T> extends FutureTask<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final CountDownLatch ended = new CountDownLatch(1);
 
-            // Descargar de Minio al archivo temporal
-            try (InputStream minioStream = documentsStorageService.downloadDocument(filePath);
-                 FileOutputStream fos = new FileOutputStream(tempFile)) {
+        private StageTask(Supplier<T> work) {
+            super(work::get);
+        }
 
-                // Copiar contenido
-                minioStream.transferTo(fos);
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                ended.countDown();
             }
+        }
 
-            return tempFile;
-        } catch (Exception e) {
-            throw new DocumentProcessingException("Failed to download to temp file :" + e);
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                result.completeExceptionally(new CancellationException("Stage was cancelled"));
+                return;
+            }
+            try {
+                result.complete(get());
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void rejected(Exception e) {
+            cancel(false);
+            result.completeExceptionally(e);
+            ended.countDown();
         }
     }
 }
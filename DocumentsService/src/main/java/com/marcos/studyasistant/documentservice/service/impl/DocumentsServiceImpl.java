@@ -1,38 +1,71 @@
 package com.marcos.studyasistant.documentservice.service.impl;
 
 import com.marcos.studyasistant.documentservice.dto.DocumentContentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentFileDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentPagesResponseDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentStatusResponseDto;
 import com.marcos.studyasistant.documentservice.dto.DocumentUploadRequestDto;
+import com.marcos.studyasistant.documentservice.dto.StoredDocumentDto;
 import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
 import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
 import com.marcos.studyasistant.documentservice.exceptions.DocumentNotFoundException;
 import com.marcos.studyasistant.documentservice.exceptions.DocumentProcessingException;
+import com.marcos.studyasistant.documentservice.exceptions.DuplicateDocumentException;
 import com.marcos.studyasistant.documentservice.mappers.DocumentMapper;
 import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
-import com.marcos.studyasistant.documentservice.service.DocumentsProcessingService;
+import com.marcos.studyasistant.documentservice.service.DocumentProcessingQueueService;
+import com.marcos.studyasistant.documentservice.service.DocumentSegmentService;
+import com.marcos.studyasistant.documentservice.service.DocumentTagService;
 import com.marcos.studyasistant.documentservice.service.DocumentsService;
 import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.service.UploadAdmissionService;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 @Service
+@Slf4j
 public class DocumentsServiceImpl implements DocumentsService {
 
+    private static final int COPY_BUFFER_CHARS = 8192;
+
     private final DocumentsRepository documentsRepository;
     private final DocumentsStorageService documentsStorageService;
-    private final DocumentsProcessingService documentsProcessingService;
+    private final DocumentProcessingQueueService documentProcessingQueueService;
     private final DocumentMapper documentMapper;
+    private final DocumentSegmentService documentSegmentService;
+    private final UploadAdmissionService uploadAdmissionService;
+    private final DocumentTagService documentTagService;
+    private final TransactionTemplate transactionTemplate;
 
     public DocumentsServiceImpl(DocumentsRepository documentsRepository,
                                 DocumentsStorageService documentsStorageService,
-                                DocumentsProcessingService documentsProcessingService,
-                                DocumentMapper documentMapper) {
+                                DocumentProcessingQueueService documentProcessingQueueService,
+                                DocumentMapper documentMapper,
+                                DocumentSegmentService documentSegmentService,
+                                UploadAdmissionService uploadAdmissionService,
+                                DocumentTagService documentTagService,
+                                PlatformTransactionManager transactionManager) {
         this.documentsRepository = documentsRepository;
         this.documentsStorageService = documentsStorageService;
-        this.documentsProcessingService = documentsProcessingService;
+        this.documentProcessingQueueService = documentProcessingQueueService;
         this.documentMapper = documentMapper;
+        this.documentSegmentService = documentSegmentService;
+        this.uploadAdmissionService = uploadAdmissionService;
+        this.documentTagService = documentTagService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -40,25 +73,47 @@ public class DocumentsServiceImpl implements DocumentsService {
         MultipartFile file = documentUploadRequestDto.file();
         validate(file);
 
+        // Turn the upload away before it is stored when the workers cannot keep up
+        uploadAdmissionService.admit(documentUploadRequestDto.userId());
+
+        StoredDocumentDto stored;
         try {
-            String storagePath = documentsStorageService.uploadDocument(file);
+            stored = documentsStorageService.uploadDocument(file);
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to upload document : " + e.getMessage());
+        }
+
+        // A user uploading the same file twice is rejected; other users get their own copy, whose
+        // processing is served from the extraction cache
+        if (documentsRepository.existsByUserIdAndHash(documentUploadRequestDto.userId(), stored.contentHash())) {
+            discardStoredObject(stored.filePath());
+            throw new DuplicateDocumentException("Document already uploaded : " + file.getOriginalFilename());
+        }
 
-            DocumentEntity document = DocumentEntity.builder()
+        try {
+            DocumentEntity newDocument = DocumentEntity.builder()
                     .userId(documentUploadRequestDto.userId())
                     .originalFilename(file.getOriginalFilename())
-                    .filePath(storagePath)
+                    .filePath(stored.filePath())
                     .mimeType(file.getContentType())
                     .fileSize(file.getSize())
+                    .hash(stored.contentHash())
                     .status(ProcessingStatus.UPLOADED)
                     .build();
 
-            document = documentsRepository.save(document);
-
-            // Process the document asynchronously
-            documentsProcessingService.processDocument(document.getId());
+            // The document and its job are committed together: a document is never left without a
+            // job, and the workers never pick up a job whose document does not exist
+            DocumentEntity document = transactionTemplate.execute(status -> {
+                DocumentEntity saved = documentsRepository.save(newDocument);
+                // Hand the document to the processing workers; the request does not wait for them
+                documentProcessingQueueService.enqueue(saved.getId());
+                return saved;
+            });
 
             return documentMapper.from(document);
         } catch (Exception e) {
+            // Nothing refers to the stored object any more
+            discardStoredObject(stored.filePath());
             throw new DocumentProcessingException("Failed to upload document : " + e.getMessage());
         }
 
@@ -72,31 +127,154 @@ public class DocumentsServiceImpl implements DocumentsService {
     }
 
     @Override
-    public DocumentContentResponseDto getDocumentContent(UUID id) {
+    public DocumentStatusResponseDto getDocumentStatus(UUID id) {
+        return documentsRepository.findStatusById(id)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
+    }
+
+    @Override
+    public DocumentContentResponseDto getDocumentContent(UUID id, long offset, Long length) {
         DocumentEntity document = documentsRepository.findById(id)
                 .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
 
+        if (offset < 0 || (length != null && length < 0)) {
+            throw new IllegalArgumentException("offset y length no pueden ser negativos");
+        }
+
+        Long textLength = document.getExtractedTextLength();
+        long start = textLength == null ? 0 : Math.min(offset, textLength);
+        long available = textLength == null ? 0 : textLength - start;
         return new DocumentContentResponseDto(
                 document.getId(),
                 document.getOriginalFilename(),
-                document.getExtractedText(),
-                document.getStatus()
+                document.getStatus(),
+                textLength,
+                start,
+                length == null ? available : Math.min(length, available)
         );
     }
 
     @Override
+    public void writeDocumentContent(DocumentContentResponseDto content, Writer writer) throws IOException {
+        if (!content.isAvailable() || content.length() == 0) {
+            return;
+        }
+
+        // Documents processed before page segments existed only have the compressed copy in storage
+        if (!documentSegmentService.writeText(content.id(), content.offset(), content.length(), writer)) {
+            copyStoredText(content, writer);
+        }
+        writer.flush();
+    }
+
+    private void copyStoredText(DocumentContentResponseDto content, Writer writer) throws IOException {
+        DocumentEntity document = documentsRepository.findById(content.id())
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
+        if (document.getExtractedTextPath() == null) {
+            return;
+        }
+
+        InputStream stored;
+        try {
+            stored = documentsStorageService.downloadExtractedText(document.getExtractedTextPath());
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to load document content : " + e.getMessage());
+        }
+
+        try (Reader text = new InputStreamReader(stored, StandardCharsets.UTF_8)) {
+            long skipped = 0;
+            while (skipped < content.offset()) {
+                long step = text.skip(content.offset() - skipped);
+                if (step <= 0) {
+                    return;
+                }
+                skipped += step;
+            }
+
+            char[] buffer = new char[COPY_BUFFER_CHARS];
+            long remaining = content.length();
+            while (remaining > 0) {
+                int read = text.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                writer.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    @Override
+    public DocumentFileDto getDocumentFile(UUID id) {
+        DocumentEntity document = documentsRepository.findById(id)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
+
+        return new DocumentFileDto(
+                document.getId(),
+                document.getOriginalFilename(),
+                document.getMimeType(),
+                document.getFileSize(),
+                document.getHash(),
+                document.getFilePath()
+        );
+    }
+
+    @Override
+    public InputStream openDocumentFile(DocumentFileDto file, long offset, long length) {
+        try {
+            return offset == 0 && length == file.size()
+                    ? documentsStorageService.downloadDocument(file.filePath())
+                    : documentsStorageService.downloadDocumentRange(file.filePath(), offset, length);
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to open document file : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public URI getDocumentFileUrl(DocumentFileDto file) {
+        try {
+            return URI.create(documentsStorageService.getPresignedDownloadUrl(file.filePath(), file.filename()));
+        } catch (Exception e) {
+            throw new DocumentProcessingException("Failed to create download URL : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public DocumentPagesResponseDto getDocumentPages(UUID id, int from, Integer to) {
+        return documentSegmentService.getPages(id, from, to);
+    }
+
+    @Override
+    @Transactional
     public void deleteDocument(UUID id) {
         DocumentEntity document = documentsRepository.findById(id)
                 .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
 
         try {
-            documentsStorageService.deleteDocument(document.getFilePath());
+            // The job goes with the document, or the sweeper would keep re-queuing a missing document
+            documentProcessingQueueService.dequeue(document.getId());
+            documentSegmentService.deleteSegments(document.getId());
+            documentTagService.deleteDocumentTags(document);
             documentsRepository.delete(document);
+            documentsRepository.flush();
+            // Storage last: a failure there rolls the rows back instead of leaving them without a file
+            documentsStorageService.deleteDocument(document.getFilePath());
+            if (document.getExtractedTextPath() != null) {
+                documentsStorageService.deleteDocument(document.getExtractedTextPath());
+            }
         } catch (Exception e) {
             throw new DocumentProcessingException("Failed to delete document : " + e.getMessage());
         }
     }
 
+    private void discardStoredObject(String filePath) {
+        try {
+            documentsStorageService.deleteDocument(filePath);
+        } catch (Exception e) {
+            log.warn("Failed to remove discarded upload {} from storage: {}", filePath, e.getMessage());
+        }
+    }
+
     private void validate(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("El archivo no puede estar vacío");
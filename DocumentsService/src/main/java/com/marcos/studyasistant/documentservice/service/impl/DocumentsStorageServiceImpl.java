@@ -1,43 +1,251 @@
 package com.marcos.studyasistant.documentservice.service.impl;
 
 import com.marcos.studyasistant.documentservice.config.MinioConfig;
+import com.marcos.studyasistant.documentservice.config.MultipartMinioClient;
+import com.marcos.studyasistant.documentservice.dto.ChunkedUploadTargetDto;
+import com.marcos.studyasistant.documentservice.dto.StoredDocumentDto;
 import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.utils.HashUtil;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
 import io.minio.*;
+import io.minio.http.Method;
+import io.minio.messages.Part;
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import static com.google.common.io.Files.getFileExtension;
 
 @Service
+@Slf4j
 public class DocumentsStorageServiceImpl implements DocumentsStorageService {
 
+    private static final String EXTRACTED_TEXT_PREFIX = "extracted-text/";
+
+    // S3 rejects parts smaller than 5 MB (except the last one)
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
     private final MinioClient minioClient;
+    private final MultipartMinioClient multipartMinioClient;
     private final MinioConfig minioConfig;
+    private final Executor storageUploadExecutor;
+
+    @Value("${minio.multipart.threshold-bytes:67108864}")
+    private long multipartThresholdBytes;
+
+    @Value("${minio.multipart.part-size-bytes:16777216}")
+    private int partSizeBytes;
+
+    @Value("${minio.multipart.concurrency:4}")
+    private int multipartConcurrency;
+
+    // Parts buffered or uploading across all uploads; sized to the storage pool's threads plus its
+    // queue (both minio.multipart.concurrency), so the pool never has to reject a part
+    private Semaphore partsInFlight;
+
+    @Value("${minio.multipart.max-retries:3}")
+    private int maxPartRetries;
 
-    public DocumentsStorageServiceImpl(MinioClient minioClient, MinioConfig minioConfig) {
+    @Value("${minio.presigned-url.expiry-seconds:300}")
+    private int presignedUrlExpirySeconds;
+
+    public DocumentsStorageServiceImpl(MinioClient minioClient,
+                                       MultipartMinioClient multipartMinioClient,
+                                       MinioConfig minioConfig,
+                                       @Qualifier("storageUploadExecutor") Executor storageUploadExecutor) {
         this.minioClient = minioClient;
+        this.multipartMinioClient = multipartMinioClient;
         this.minioConfig = minioConfig;
+        this.storageUploadExecutor = storageUploadExecutor;
     }
 
     @PostConstruct
     public void init() {
+        partsInFlight = new Semaphore(multipartConcurrency * 2, true);
         createBucketIfNotExists();
     }
 
     @Override
-    public String uploadDocument(MultipartFile file) throws Exception {
+    public StoredDocumentDto uploadDocument(MultipartFile file) throws Exception {
         String filename = generateUniqueFilename(file.getOriginalFilename());
-        minioClient.putObject(
-                PutObjectArgs.builder()
-                .bucket(minioConfig.getMinioBucketName())
-                .object(filename)
-                .stream(file.getInputStream(), file.getSize(), -1)
-                .contentType(file.getContentType())
-                .build()
-        );
-        return filename;
+        MessageDigest digest = HashUtil.newSHA256Digest();
+
+        // The digest sees every byte on its way to MinIO, no second read needed
+        try (DigestInputStream digestStream = new DigestInputStream(file.getInputStream(), digest)) {
+            if (file.getSize() >= multipartThresholdBytes) {
+                uploadMultipart(filename, digestStream, file.getContentType());
+            } else {
+                minioClient.putObject(
+                        PutObjectArgs.builder()
+                        .bucket(minioConfig.getMinioBucketName())
+                        .object(filename)
+                        .stream(digestStream, file.getSize(), -1)
+                        .contentType(file.getContentType())
+                        .build()
+                );
+            }
+        }
+        return new StoredDocumentDto(filename, HashUtil.toHex(digest));
+    }
+
+    /**
+     * Splits the stream into fixed-size parts and uploads them concurrently on the storage pool.
+     * The number of parts buffered at a time is bounded across all uploads, so concurrent uploads
+     * wait for room instead of overflowing the pool; the stream itself is still read sequentially,
+     * so the caller's digest sees the bytes in order.
+     */
+    private void uploadMultipart(String filename, InputStream stream, String contentType) throws Exception {
+        String bucket = minioConfig.getMinioBucketName();
+        int partSize = Math.max(MIN_PART_SIZE, partSizeBytes);
+        String uploadId = multipartMinioClient.createMultipartUpload(bucket, filename, contentType);
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+
+        try {
+            int partNumber = 1;
+            while (true) {
+                // The permit covers the buffer too, so it is taken before the part is read
+                partsInFlight.acquire();
+                byte[] data;
+                try {
+                    data = stream.readNBytes(partSize);
+                } catch (Exception e) {
+                    partsInFlight.release();
+                    throw e;
+                }
+                if (data.length == 0 || parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    partsInFlight.release();
+                    break;
+                }
+
+                int number = partNumber++;
+                parts.add(submitPart(() -> uploadPartWithRetry(bucket, filename, uploadId, number, data)));
+            }
+
+            Part[] completed = parts.stream().map(CompletableFuture::join).toArray(Part[]::new);
+            multipartMinioClient.completeMultipartUpload(bucket, filename, uploadId, completed);
+            log.info("Uploaded {} in {} parts", filename, completed.length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            parts.forEach(part -> part.cancel(true));
+            abortQuietly(bucket, filename, uploadId);
+            throw e;
+        } catch (Exception e) {
+            parts.forEach(part -> part.cancel(true));
+            abortQuietly(bucket, filename, uploadId);
+            throw e instanceof CompletionException && e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    // The permit is released when the task has really finished, not when its future is cancelled
+    private CompletableFuture<Part> submitPart(Supplier<Part> upload) {
+        CompletableFuture<Part> part = new CompletableFuture<>();
+        try {
+            storageUploadExecutor.execute(() -> {
+                try {
+                    if (!part.isDone()) {
+                        part.complete(upload.get());
+                    }
+                } catch (Throwable e) {
+                    part.completeExceptionally(e);
+                } finally {
+                    partsInFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            partsInFlight.release();
+            throw e;
+        }
+        return part;
+    }
+
+    private Part uploadPartWithRetry(String bucket, String filename, String uploadId, int partNumber, byte[] data) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return multipartMinioClient.uploadPart(bucket, filename, uploadId, partNumber, data);
+            } catch (Exception e) {
+                if (attempt > maxPartRetries) {
+                    throw new CompletionException(e);
+                }
+                log.warn("Part {} of {} failed (attempt {}), retrying: {}", partNumber, filename, attempt, e.getMessage());
+                try {
+                    Thread.sleep(200L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(interrupted);
+                }
+            }
+        }
+    }
+
+    private void abortQuietly(String bucket, String filename, String uploadId) {
+        try {
+            multipartMinioClient.abortMultipartUpload(bucket, filename, uploadId);
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} for {}: {}", uploadId, filename, e.getMessage());
+        }
+    }
+
+    @Override
+    public ChunkedUploadTargetDto initiateChunkedUpload(String originalFilename, String contentType) throws Exception {
+        String filename = generateUniqueFilename(originalFilename);
+        String uploadId = multipartMinioClient.createMultipartUpload(
+                minioConfig.getMinioBucketName(), filename, contentType);
+        return new ChunkedUploadTargetDto(filename, uploadId);
+    }
+
+    @Override
+    public void uploadChunk(String filename, String uploadId, int chunkNumber, byte[] data) throws Exception {
+        multipartMinioClient.uploadPart(minioConfig.getMinioBucketName(), filename, uploadId, chunkNumber, data);
+    }
+
+    @Override
+    public SortedMap<Integer, Long> listUploadedChunks(String filename, String uploadId) throws Exception {
+        SortedMap<Integer, Long> chunks = new TreeMap<>();
+        for (Part part : multipartMinioClient.listParts(minioConfig.getMinioBucketName(), filename, uploadId)) {
+            chunks.put(part.partNumber(), part.partSize());
+        }
+        return chunks;
+    }
+
+    @Override
+    public void completeChunkedUpload(String filename, String uploadId) throws Exception {
+        String bucket = minioConfig.getMinioBucketName();
+        Part[] parts = multipartMinioClient.listParts(bucket, filename, uploadId).toArray(Part[]::new);
+        multipartMinioClient.completeMultipartUpload(bucket, filename, uploadId, parts);
+    }
+
+    @Override
+    public void abortChunkedUpload(String filename, String uploadId) throws Exception {
+        multipartMinioClient.abortMultipartUpload(minioConfig.getMinioBucketName(), filename, uploadId);
     }
 
     @Override
@@ -50,6 +258,93 @@ public class DocumentsStorageServiceImpl implements DocumentsStorageService {
         );
     }
 
+    @Override
+    public InputStream downloadDocumentRange(String filename, long offset, long length) throws Exception {
+        return minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(minioConfig.getMinioBucketName())
+                        .object(filename)
+                        .offset(offset)
+                        .length(length)
+                        .build()
+        );
+    }
+
+    @Override
+    public String getPresignedDownloadUrl(String filename, String downloadAs) throws Exception {
+        String disposition = ContentDisposition.attachment()
+                .filename(downloadAs, StandardCharsets.UTF_8)
+                .build()
+                .toString();
+        return minioClient.getPresignedObjectUrl(
+                GetPresignedObjectUrlArgs.builder()
+                        .method(Method.GET)
+                        .bucket(minioConfig.getMinioBucketName())
+                        .object(filename)
+                        .expiry(presignedUrlExpirySeconds, TimeUnit.SECONDS)
+                        .extraQueryParams(Map.of("response-content-disposition", disposition))
+                        .build()
+        );
+    }
+
+    @Override
+    public String storeExtractedText(String filename, SpillingTextBuffer text) throws Exception {
+        String textPath = EXTRACTED_TEXT_PREFIX + filename + ".txt.gz";
+
+        // A spilled text is already gzip-compressed UTF-8 on disk: upload the file as it is
+        Optional<Path> spillFile = text.spillFile();
+        if (spillFile.isPresent()) {
+            try (InputStream compressed = Files.newInputStream(spillFile.get())) {
+                minioClient.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(minioConfig.getMinioBucketName())
+                                .object(textPath)
+                                .stream(compressed, Files.size(spillFile.get()), -1)
+                                .contentType("application/gzip")
+                                .build()
+                );
+            }
+            return textPath;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (Reader reader = text.openReader();
+             Writer writer = new OutputStreamWriter(new GZIPOutputStream(compressed), StandardCharsets.UTF_8)) {
+            reader.transferTo(writer);
+        }
+
+        minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(minioConfig.getMinioBucketName())
+                        .object(textPath)
+                        .stream(new ByteArrayInputStream(compressed.toByteArray()), compressed.size(), -1)
+                        .contentType("application/gzip")
+                        .build()
+        );
+        return textPath;
+    }
+
+    @Override
+    public String copyExtractedText(String textPath, String filename) throws Exception {
+        String copyPath = EXTRACTED_TEXT_PREFIX + filename + ".txt.gz";
+        minioClient.copyObject(
+                CopyObjectArgs.builder()
+                        .bucket(minioConfig.getMinioBucketName())
+                        .object(copyPath)
+                        .source(CopySource.builder()
+                                .bucket(minioConfig.getMinioBucketName())
+                                .object(textPath)
+                                .build())
+                        .build()
+        );
+        return copyPath;
+    }
+
+    @Override
+    public InputStream downloadExtractedText(String textPath) throws Exception {
+        return new GZIPInputStream(downloadDocument(textPath));
+    }
+
     @Override
     public void deleteDocument(String filename) throws Exception {
         minioClient.removeObject(
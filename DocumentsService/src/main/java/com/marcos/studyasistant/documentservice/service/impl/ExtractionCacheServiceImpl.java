@@ -0,0 +1,138 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.ExtractionCacheEntry;
+import com.marcos.studyasistant.documentservice.reposiroty.ExtractionCacheRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.service.ExtractionCacheService;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Extraction results shared by every upload of the same file. The same slides uploaded by a whole
+ * class are extracted, detected and tagged once; later uploads copy the stored text inside the
+ * storage and only write their own rows.
+ * <p>
+ * Entries not used for {@code ttl-days} are evicted, which also bounds how long a result produced
+ * by an older extractor or tagging dictionary keeps being served.
+ */
+@Service
+@Slf4j
+public class ExtractionCacheServiceImpl implements ExtractionCacheService {
+
+    private static final String CACHE_TEXT_PREFIX = "cache/";
+
+    private final ExtractionCacheRepository cacheRepository;
+    private final DocumentsStorageService documentsStorageService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${documents.extraction.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${documents.extraction.cache.ttl-days:30}")
+    private int ttlDays;
+
+    @Value("${documents.extraction.cache.eviction-batch-size:100}")
+    private int evictionBatchSize;
+
+    @Value("${documents.extraction.spill.memory-chars:1048576}")
+    private int spillMemoryChars;
+
+    public ExtractionCacheServiceImpl(ExtractionCacheRepository cacheRepository,
+                                      DocumentsStorageService documentsStorageService,
+                                      MeterRegistry meterRegistry) {
+        this.cacheRepository = cacheRepository;
+        this.documentsStorageService = documentsStorageService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Optional<ExtractionCacheEntry> find(String contentHash) {
+        if (!enabled || contentHash == null) {
+            return Optional.empty();
+        }
+        Optional<ExtractionCacheEntry> entry = cacheRepository.findById(contentHash);
+        entry.ifPresent(hit -> cacheRepository.recordHit(contentHash, LocalDateTime.now()));
+        meterRegistry.counter("documents.extraction.cache.lookups", "result", entry.isPresent() ? "hit" : "miss")
+                .increment();
+        return entry;
+    }
+
+    @Override
+    public SpillingTextBuffer loadText(ExtractionCacheEntry entry) throws IOException {
+        SpillingTextBuffer text = new SpillingTextBuffer(spillMemoryChars);
+        try (Reader reader = new InputStreamReader(documentsStorageService.downloadExtractedText(entry.getTextPath()),
+                StandardCharsets.UTF_8)) {
+            reader.transferTo(text);
+            text.close();
+        } catch (Exception e) {
+            text.discard();
+            throw new IOException("Failed to read cached text " + entry.getTextPath() + ": " + e.getMessage(), e);
+        }
+        return text;
+    }
+
+    @Override
+    public void store(DocumentEntity document, long textLength, List<Long> pageOffsets, Map<String, BigDecimal> tags) {
+        String contentHash = document.getHash();
+        if (!enabled || contentHash == null || document.getExtractedTextPath() == null
+                || cacheRepository.existsById(contentHash)) {
+            return;
+        }
+
+        try {
+            String textPath = documentsStorageService.copyExtractedText(document.getExtractedTextPath(),
+                    CACHE_TEXT_PREFIX + contentHash);
+            cacheRepository.save(ExtractionCacheEntry.builder()
+                    .contentHash(contentHash)
+                    .textPath(textPath)
+                    .textLength(textLength)
+                    .pageOffsets(pageOffsets)
+                    .pageCount(document.getPageCount())
+                    .languageDetected(document.getLanguageDetected())
+                    .tags(tags)
+                    .build());
+            log.debug("Cached extraction of document {} under {}", document.getId(), contentHash);
+        } catch (DataIntegrityViolationException e) {
+            // Another worker cached the same file first; its copy has the same bytes
+            log.debug("Extraction of {} was cached concurrently", contentHash);
+        } catch (Exception e) {
+            log.warn("Could not cache extraction of document {}: {}", document.getId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${documents.extraction.cache.eviction-interval-ms:3600000}")
+    public void evictUnused() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        List<ExtractionCacheEntry> unused = cacheRepository.findUnusedSince(cutoff, PageRequest.of(0, evictionBatchSize));
+        for (ExtractionCacheEntry entry : unused) {
+            try {
+                documentsStorageService.deleteDocument(entry.getTextPath());
+                cacheRepository.delete(entry);
+            } catch (Exception e) {
+                log.warn("Could not evict cached extraction {}: {}", entry.getContentHash(), e.getMessage());
+            }
+        }
+        if (!unused.isEmpty()) {
+            log.info("Evicted {} cached extractions unused since {}", unused.size(), cutoff);
+        }
+    }
+}
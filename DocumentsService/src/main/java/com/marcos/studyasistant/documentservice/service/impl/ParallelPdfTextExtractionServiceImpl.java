@@ -0,0 +1,171 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.dto.PdfExtractionResultDto;
+import com.marcos.studyasistant.documentservice.dto.PdfPageRangeResultDto;
+import com.marcos.studyasistant.documentservice.exceptions.DocumentProcessingException;
+import com.marcos.studyasistant.documentservice.service.PdfTextExtractionService;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Splits large PDFs into page ranges and runs one {@link PDFTextStripper} per range on a
+ * fork-join pool. {@link PDDocument} is not thread-safe, so every range opens its own
+ * read-only view of the file; PDFBox only loads the objects of the pages it visits.
+ * Only a couple of ranges per worker are in flight at a time, and each is appended to a
+ * {@link SpillingTextBuffer} as soon as the ones before it are done.
+ */
+@Service
+@Slf4j
+public class ParallelPdfTextExtractionServiceImpl implements PdfTextExtractionService {
+
+    @Value("${documents.extraction.pdf.parallel.enabled:true}")
+    private boolean enabled;
+
+    // Either threshold is enough to switch to range extraction
+    @Value("${documents.extraction.pdf.parallel.min-pages:200}")
+    private int minPages;
+
+    @Value("${documents.extraction.pdf.parallel.min-bytes:52428800}")
+    private long minBytes;
+
+    @Value("${documents.extraction.pdf.parallel.pages-per-range:50}")
+    private int pagesPerRange;
+
+    // 0 = one worker per available core
+    @Value("${documents.extraction.pdf.parallel.parallelism:0}")
+    private int parallelism;
+
+    @Value("${documents.extraction.spill.memory-chars:1048576}")
+    private int spillMemoryChars;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(workers);
+        log.info("Parallel PDF extraction pool started with {} workers", workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public Optional<PdfExtractionResultDto> extractInRanges(Path pdfFile, long sizeBytes) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        File file = pdfFile.toFile();
+        int pageCount;
+        try (PDDocument document = PDDocument.load(file)) {
+            pageCount = document.getNumberOfPages();
+        } catch (Exception e) {
+            // Encrypted or damaged files are left to Tika, which knows how to report them
+            log.debug("Could not open {} for range extraction: {}", pdfFile, e.getMessage());
+            return Optional.empty();
+        }
+
+        int rangeSize = Math.max(1, pagesPerRange);
+        if ((pageCount < minPages && sizeBytes < minBytes) || pageCount <= rangeSize) {
+            return Optional.empty();
+        }
+
+        List<Callable<RangeText>> tasks = new ArrayList<>();
+        for (int start = 1; start <= pageCount; start += rangeSize) {
+            int startPage = start;
+            int endPage = Math.min(pageCount, start + rangeSize - 1);
+            tasks.add(() -> extractRange(file, startPage, endPage));
+        }
+
+        long start = System.currentTimeMillis();
+        SpillingTextBuffer text = new SpillingTextBuffer(spillMemoryChars);
+        List<Long> pageOffsets = new ArrayList<>(pageCount);
+        List<PdfPageRangeResultDto> ranges = new ArrayList<>(tasks.size());
+        // Ranges are consumed in submission order, which is page order
+        Deque<Future<RangeText>> inFlight = new ArrayDeque<>();
+        int maxInFlight = pool.getParallelism() * 2;
+        int next = 0;
+        try {
+            while (next < tasks.size() || !inFlight.isEmpty()) {
+                while (next < tasks.size() && inFlight.size() < maxInFlight) {
+                    inFlight.add(pool.submit(tasks.get(next++)));
+                }
+                RangeText range = await(inFlight.poll());
+                long base = text.length();
+                range.pageOffsets().forEach(offset -> pageOffsets.add(base + offset));
+                text.write(range.text());
+                ranges.add(range.result());
+            }
+            text.close();
+        } catch (IOException | RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(true));
+            text.discard();
+            throw e instanceof DocumentProcessingException processingException
+                    ? processingException
+                    : new DocumentProcessingException("Failed to buffer PDF text: " + e.getMessage());
+        }
+
+        log.info("Extracted {} pages of {} in {} ranges in {} ms ({} characters{})",
+                pageCount, pdfFile.getFileName(), ranges.size(), System.currentTimeMillis() - start,
+                text.length(), text.isSpilled() ? ", spilled to disk" : "");
+        return Optional.of(new PdfExtractionResultDto(text, pageCount, pageOffsets, ranges));
+    }
+
+    private RangeText extractRange(File file, int startPage, int endPage) throws Exception {
+        long start = System.currentTimeMillis();
+        try (PDDocument document = PDDocument.load(file)) {
+            StringWriter rangeText = new StringWriter();
+            List<Long> pageOffsets = new ArrayList<>(endPage - startPage + 1);
+            PDFTextStripper stripper = new PDFTextStripper() {
+                @Override
+                protected void startPage(PDPage page) throws IOException {
+                    pageOffsets.add((long) rangeText.getBuffer().length());
+                    super.startPage(page);
+                }
+            };
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            stripper.writeText(document, rangeText);
+            String text = rangeText.toString();
+            return new RangeText(text, pageOffsets, new PdfPageRangeResultDto(startPage, endPage, text.length(),
+                    System.currentTimeMillis() - start));
+        }
+    }
+
+    private RangeText await(Future<RangeText> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DocumentProcessingException("Interrupted while extracting PDF page ranges");
+        } catch (ExecutionException e) {
+            throw new DocumentProcessingException("Failed to extract PDF page range: " + e.getCause().getMessage());
+        }
+    }
+
+    private record RangeText(String text, List<Long> pageOffsets, PdfPageRangeResultDto result) {
+    }
+}
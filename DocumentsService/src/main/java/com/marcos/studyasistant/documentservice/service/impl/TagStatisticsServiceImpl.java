@@ -0,0 +1,218 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.reposiroty.TagCountRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.UserTagCountRepository;
+import com.marcos.studyasistant.documentservice.service.TagStatisticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Tag usage counters, so "most used tags" never has to group the whole document_tags table.
+ * <p>
+ * A tag change appends a row to {@code tag_count_deltas} in the same transaction as the change
+ * itself. Every {@code flush-interval-ms} one instance folds the accumulated rows into
+ * {@code tag_counts} and {@code user_tag_counts}; a tag on a thousand new documents costs one
+ * counter update, not a thousand contended ones. Top tags are read through indexes on the counts,
+ * and the global list is also kept in memory between flushes.
+ * <p>
+ * Every {@code reconcile-interval-ms} one instance recounts everything from document_tags. The
+ * recount, the counter replacement and the removal of the deltas it already covers are a single
+ * statement, so each change is counted exactly once whichever side of the recount it falls on.
+ */
+@Service
+@Slf4j
+public class TagStatisticsServiceImpl implements TagStatisticsService {
+
+    private static final String INSERT_DELTA = "INSERT INTO tag_count_deltas (user_id, tag, delta) " +
+            "VALUES (:userId, :tag, :delta)";
+
+    // Flushes and recounts take this lock, so they never interleave; any key unique to this service
+    private static final long COUNTERS_LOCK_KEY = 7_461_676_373_000L;
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(:key)";
+
+    // Rows are upserted in key order, although the lock already keeps two flushes apart
+    private static final String FLUSH = """
+            WITH taken AS (DELETE FROM tag_count_deltas RETURNING user_id, tag, delta),
+                 user_upserted AS (
+                     INSERT INTO user_tag_counts (id, user_id, tag, usage_count)
+                     SELECT gen_random_uuid(), user_id, tag, SUM(delta) FROM taken
+                     GROUP BY user_id, tag HAVING SUM(delta) <> 0 ORDER BY user_id, tag
+                     ON CONFLICT (user_id, tag) DO UPDATE SET usage_count = user_tag_counts.usage_count + EXCLUDED.usage_count
+                     RETURNING 1)
+            INSERT INTO tag_counts (id, tag, usage_count)
+            SELECT gen_random_uuid(), tag, SUM(delta) FROM taken
+            GROUP BY tag HAVING SUM(delta) <> 0 ORDER BY tag
+            ON CONFLICT (tag) DO UPDATE SET usage_count = tag_counts.usage_count + EXCLUDED.usage_count
+            """;
+
+    // Due once the last recount, by any instance, is older than the interval (database clock)
+    private static final String CLAIM_RECONCILE = "UPDATE tag_statistics_state " +
+            "SET reconciled_at = (now() AT TIME ZONE 'UTC') " +
+            "WHERE id = 1 AND reconciled_at < (now() AT TIME ZONE 'UTC') - make_interval(secs => :intervalSeconds)";
+
+    // Every part sees the same snapshot: the deltas it deletes are exactly the changes it counts
+    private static final String RECONCILE = """
+            WITH covered AS (DELETE FROM tag_count_deltas),
+                 user_actual AS (
+                     SELECT d.user_id, dt.tag, COUNT(*) AS usage_count
+                     FROM document_tags dt JOIN documents d ON d.id = dt.document_id
+                     GROUP BY d.user_id, dt.tag),
+                 tag_actual AS (SELECT tag, SUM(usage_count) AS usage_count FROM user_actual GROUP BY tag),
+                 user_upserted AS (
+                     INSERT INTO user_tag_counts (id, user_id, tag, usage_count)
+                     SELECT gen_random_uuid(), user_id, tag, usage_count FROM user_actual
+                     ON CONFLICT (user_id, tag) DO UPDATE SET usage_count = EXCLUDED.usage_count
+                     RETURNING 1),
+                 user_removed AS (
+                     DELETE FROM user_tag_counts c
+                     WHERE NOT EXISTS (SELECT 1 FROM user_actual a WHERE a.user_id = c.user_id AND a.tag = c.tag)
+                     RETURNING 1),
+                 tag_upserted AS (
+                     INSERT INTO tag_counts (id, tag, usage_count)
+                     SELECT gen_random_uuid(), tag, usage_count FROM tag_actual
+                     ON CONFLICT (tag) DO UPDATE SET usage_count = EXCLUDED.usage_count
+                     RETURNING 1),
+                 tag_removed AS (
+                     DELETE FROM tag_counts c
+                     WHERE NOT EXISTS (SELECT 1 FROM tag_actual a WHERE a.tag = c.tag)
+                     RETURNING 1)
+            SELECT (SELECT COUNT(*) FROM tag_upserted) AS tags,
+                   (SELECT COUNT(*) FROM user_upserted) AS user_tags,
+                   (SELECT COUNT(*) FROM tag_removed) + (SELECT COUNT(*) FROM user_removed) AS removed
+            """;
+
+    private final TagCountRepository tagCountRepository;
+    private final UserTagCountRepository userTagCountRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor tagStatisticsExecutor;
+
+    private volatile List<String> topTags;
+
+    // Number of global top tags kept in memory; larger requests go to the database
+    @Value("${documents.tags.stats.cached-top-tags:100}")
+    private int cachedTopTags;
+
+    @Value("${documents.tags.stats.reconcile-interval-ms:3600000}")
+    private long reconcileIntervalMs;
+
+    public TagStatisticsServiceImpl(TagCountRepository tagCountRepository,
+                                    UserTagCountRepository userTagCountRepository,
+                                    NamedParameterJdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Qualifier("tagStatisticsExecutor") Executor tagStatisticsExecutor) {
+        this.tagCountRepository = tagCountRepository;
+        this.userTagCountRepository = userTagCountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tagStatisticsExecutor = tagStatisticsExecutor;
+    }
+
+    @Override
+    public void recordChange(UUID userId, Map<String, Long> deltas) {
+        SqlParameterSource[] rows = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("tag", entry.getKey())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        if (rows.length > 0) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA, rows);
+        }
+    }
+
+    @Override
+    public List<String> getTopTags(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (limit > cachedTopTags) {
+            return tagCountRepository.findTopTags(PageRequest.of(0, limit));
+        }
+        List<String> cached = topTags;
+        if (cached == null) {
+            cached = refreshTopTags();
+        }
+        return cached.subList(0, Math.min(limit, cached.size()));
+    }
+
+    @Override
+    public List<String> getTopTags(UUID userId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return userTagCountRepository.findTopTags(userId, PageRequest.of(0, limit));
+    }
+
+    @Scheduled(fixedDelayString = "${documents.tags.stats.flush-interval-ms:5000}")
+    public void flush() {
+        try {
+            // Whichever instance gets the lock folds in everyone's changes; the others skip
+            Integer counters = transactionTemplate.execute(status -> tryLock() ? jdbcTemplate.update(FLUSH, Map.of()) : null);
+            if (counters != null && counters > 0) {
+                log.debug("Flushed tag statistics: {} tags updated", counters);
+            }
+            // Also picks up what other instances have flushed
+            refreshTopTags();
+        } catch (RuntimeException e) {
+            log.warn("Could not update tag statistics, the next flush will: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether a recount is due; the recount itself runs on its own executor, off the
+     * scheduler, and on one instance per interval.
+     */
+    @Scheduled(fixedDelayString = "${documents.tags.stats.reconcile-check-interval-ms:300000}",
+            initialDelayString = "${documents.tags.stats.reconcile-initial-delay-ms:30000}")
+    public void reconcile() {
+        tagStatisticsExecutor.execute(this::reconcileIfDue);
+    }
+
+    private void reconcileIfDue() {
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Object> result = transactionTemplate.execute(status -> {
+                // A flush holding the lock only delays the recount to the next check
+                if (!tryLock() || jdbcTemplate.update(CLAIM_RECONCILE,
+                        Map.of("intervalSeconds", reconcileIntervalMs / 1000.0)) == 0) {
+                    return null;
+                }
+                return jdbcTemplate.queryForMap(RECONCILE, Map.of());
+            });
+            if (result == null) {
+                return;
+            }
+            refreshTopTags();
+            log.info("Tag statistics reconciled in {} ms: {} tags, {} user tags, {} stale counters removed",
+                    System.currentTimeMillis() - start, result.get("tags"), result.get("user_tags"), result.get("removed"));
+        } catch (RuntimeException e) {
+            log.error("Could not reconcile tag statistics: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Map.of("key", COUNTERS_LOCK_KEY), Boolean.class));
+    }
+
+    private List<String> refreshTopTags() {
+        List<String> refreshed = List.copyOf(tagCountRepository.findTopTags(PageRequest.of(0, cachedTopTags)));
+        topTags = refreshed;
+        return refreshed;
+    }
+}
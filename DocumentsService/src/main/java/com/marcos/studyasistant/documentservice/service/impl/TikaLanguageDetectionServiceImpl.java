@@ -1,19 +1,43 @@
 package com.marcos.studyasistant.documentservice.service.impl;
 
 import com.marcos.studyasistant.documentservice.dto.LanguageDetectionResultDto;
+import com.marcos.studyasistant.documentservice.dto.LanguageWindowResultDto;
 import com.marcos.studyasistant.documentservice.service.LanguageDetectionService;
+import com.marcos.studyasistant.documentservice.utils.LanguageTextCleaner;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.language.detect.LanguageDetector;
 import org.apache.tika.language.detect.LanguageResult;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class TikaLanguageDetectionServiceImpl implements LanguageDetectionService {
 
-    private final LanguageDetector languageDetector;
+    // How far a window edge may move to avoid cutting a word in half
+    private static final int WORD_BOUNDARY_LOOKAHEAD = 64;
+
+    // Snowball configurations shipped with every supported PostgreSQL, named after the language
+    private static final Set<String> TEXT_SEARCH_CONFIGS = Set.of(
+            "arabic", "danish", "dutch", "english", "finnish", "french", "german", "greek", "hungarian",
+            "indonesian", "irish", "italian", "lithuanian", "nepali", "norwegian", "portuguese", "romanian",
+            "russian", "spanish", "swedish", "tamil", "turkish");
+    private static final String DEFAULT_TEXT_SEARCH_CONFIG = "simple";
+
+    // The Optimaize detector keeps per-call state, so each thread gets its own. loadModels() reuses
+    // the built-in profiles Tika loads once per JVM, so a new detector is cheap
+    private final ThreadLocal<LanguageDetector> languageDetector;
 
     @Value("${language.detection.min-text-length:50}")
     private int minTextLength;
@@ -21,19 +45,44 @@ public class TikaLanguageDetectionServiceImpl implements LanguageDetectionServic
     @Value("${language.detection.confidence-threshold:0.5}")
     private double confidenceThreshold;
 
+    @Value("${language.detection.sampling.enabled:true}")
+    private boolean samplingEnabled;
+
+    // Texts shorter than this are detected as a whole
+    @Value("${language.detection.sampling.threshold-chars:20000}")
+    private int samplingThresholdChars;
+
+    @Value("${language.detection.sampling.window-count:5}")
+    private int windowCount;
+
+    @Value("${language.detection.sampling.window-chars:3000}")
+    private int windowChars;
+
+    // Windows that must agree before the vote may stop early
+    @Value("${language.detection.sampling.min-windows:2}")
+    private int minWindows;
+
     public TikaLanguageDetectionServiceImpl() {
-        LanguageDetector tempDetector = null;
+        ThreadLocal<LanguageDetector> tempDetector = null;
         try {
-            tempDetector = LanguageDetector.getDefaultLanguageDetector();
-            tempDetector.loadModels();
+            LanguageDetector first = newDetector();
+            tempDetector = ThreadLocal.withInitial(TikaLanguageDetectionServiceImpl::newDetector);
+            tempDetector.set(first);
             log.info("LanguageDetectionService initialized with Apache Tika");
         } catch (Exception e) {
             log.warn("Language detector not available, falling back to default behavior: {}", e.getMessage());
-            tempDetector = null;
         }
         this.languageDetector = tempDetector;
     }
 
+    private static LanguageDetector newDetector() {
+        try {
+            return LanguageDetector.getDefaultLanguageDetector().loadModels();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public LanguageDetectionResultDto detectLanguage(String text) {
 
@@ -46,7 +95,16 @@ public class TikaLanguageDetectionServiceImpl implements LanguageDetectionServic
             return LanguageDetectionResultDto.unknown("Language detector not available");
         }
 
-        String cleanText = cleanText(text);
+        if (samplingEnabled && text.length() >= samplingThresholdChars) {
+            try {
+                return detectSampled(snapWindows(text, 0, sampleWindows(text.length())), text.length());
+            } catch (Exception e) {
+                log.error("Error detecting language with Apache Tika: {}", e.getMessage(), e);
+                return LanguageDetectionResultDto.unknown("Detection error: " + e.getMessage());
+            }
+        }
+
+        String cleanText = LanguageTextCleaner.clean(text);
 
         if (isTextTooShort(cleanText)) {
             return LanguageDetectionResultDto.unknown(
@@ -55,7 +113,7 @@ public class TikaLanguageDetectionServiceImpl implements LanguageDetectionServic
         }
 
         try {
-            LanguageResult result = languageDetector.detect(cleanText);
+            LanguageResult result = detect(cleanText);
             String detectedLanguage = result.getLanguage();
             double confidence = result.getRawScore();
 
@@ -75,28 +133,193 @@ public class TikaLanguageDetectionServiceImpl implements LanguageDetectionServic
         }
     }
 
-    private String cleanText(String text) {
-        if (text == null) {
-            return "";
+    /**
+     * Same as {@link #detectLanguage(String)} for a buffered text. A text that has spilled to disk
+     * is always sampled, and all windows are read in a single pass over the compressed file.
+     */
+    @Override
+    public LanguageDetectionResultDto detectLanguage(SpillingTextBuffer text) {
+        if (text == null || text.length() == 0) {
+            return LanguageDetectionResultDto.unknown("Text is empty or null");
         }
 
-        return text
-                .replaceAll("https?://[\\w\\.-]+(?:/[\\w\\.-]*)*(?:\\?[\\w&=%\\.-]*)?", " ")
-                .replaceAll("[\\w\\.-]+@[\\w\\.-]+\\.[a-zA-Z]{2,}", " ")
-                .replaceAll("\\b\\d{4,}\\b", " ")
-                .replaceAll("[^\\p{L}\\p{N}\\s\\p{Punct}]", " ")
-                .replaceAll("\\s+", " ")
-                .trim();
+        try {
+            if (!text.isSpilled() && !(samplingEnabled && text.length() >= samplingThresholdChars)) {
+                return detectLanguage(text.readPrefix((int) text.length()));
+            }
+            if (languageDetector == null) {
+                return LanguageDetectionResultDto.unknown("Language detector not available");
+            }
+
+            // One extra character on each side lets the windows snap to word boundaries
+            List<long[]> windows = sampleWindows(text.length());
+            List<long[]> slices = windows.stream()
+                    .map(window -> new long[]{Math.max(0, window[0] - 1), window[1] + 1})
+                    .toList();
+            List<String> sliceTexts = text.readRanges(slices);
+
+            List<Window> snapped = new ArrayList<>(windows.size());
+            for (int i = 0; i < windows.size(); i++) {
+                snapped.addAll(snapWindows(sliceTexts.get(i), slices.get(i)[0], List.of(windows.get(i))));
+            }
+            return detectSampled(snapped, text.length());
+        } catch (Exception e) {
+            log.error("Error detecting language with Apache Tika: {}", e.getMessage(), e);
+            return LanguageDetectionResultDto.unknown("Detection error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Detects on a fixed number of windows spread across the text instead of the whole document,
+     * so the cost does not grow with its length. Each window votes for its language with its own
+     * confidence; the combined confidence of a language is its share of the votes cast so far.
+     * Once at least {@code minWindows} windows have been read and the leader passes the confidence
+     * threshold, the remaining windows are skipped.
+     */
+    private LanguageDetectionResultDto detectSampled(List<Window> windows, long textLength) {
+        List<LanguageWindowResultDto> breakdown = new ArrayList<>();
+        Map<String, Double> votes = new HashMap<>();
+        int evaluated = 0;
+
+        for (Window window : windows) {
+            String cleanWindow = LanguageTextCleaner.clean(window.text(), window.from(), window.to());
+            if (isTextTooShort(cleanWindow)) {
+                continue;
+            }
+
+            LanguageResult result = detect(cleanWindow);
+            evaluated++;
+            breakdown.add(new LanguageWindowResultDto(window.start(), window.end(), result.getLanguage(), result.getRawScore()));
+            if (!result.isUnknown()) {
+                votes.merge(result.getLanguage(), (double) result.getRawScore(), Double::sum);
+            }
+
+            if (evaluated >= minWindows && leaderConfidence(votes, evaluated) >= confidenceThreshold) {
+                break;
+            }
+        }
+
+        breakdown.sort(Comparator.comparingLong(LanguageWindowResultDto::start));
+
+        if (evaluated == 0) {
+            return new LanguageDetectionResultDto("unknown", 0.0,
+                    String.format("No sampled window reached the minimum of %d chars", minTextLength), breakdown);
+        }
+
+        Map.Entry<String, Double> leader = votes.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+        double confidence = leader == null ? 0.0 : leader.getValue() / evaluated;
+
+        log.debug("Sampled language detection over {} chars: {} windows of {}, votes {}",
+                textLength, evaluated, windows.size(), votes);
+
+        if (leader == null || confidence < confidenceThreshold) {
+            return new LanguageDetectionResultDto("unknown", 0.0,
+                    String.format("Low confidence: %.2f (threshold: %.2f) over %d sampled windows",
+                            confidence, confidenceThreshold, evaluated), breakdown);
+        }
+
+        return new LanguageDetectionResultDto(leader.getKey(), confidence,
+                String.format("apache-tika (%d of %d sampled windows)", evaluated, windows.size()), breakdown);
+    }
+
+    private double leaderConfidence(Map<String, Double> votes, int evaluated) {
+        return votes.values().stream().mapToDouble(Double::doubleValue).max().orElse(0.0) / evaluated;
+    }
+
+    /**
+     * Spreads {@code windowCount} windows evenly over a text of the given length, ordered beginning,
+     * end and then from the middle outwards, so an early stop has still seen both ends of the
+     * document. Edges are not yet snapped to words.
+     */
+    private List<long[]> sampleWindows(long length) {
+        int count = Math.max(1, windowCount);
+        long size = Math.min(windowChars, length);
+        long span = length - size;
+
+        List<Integer> order = new ArrayList<>(count);
+        order.add(0);
+        if (count > 1) {
+            order.add(count - 1);
+        }
+        double middle = (count - 1) / 2.0;
+        IntStream.range(1, count - 1).boxed()
+                .sorted(Comparator.comparingDouble(index -> Math.abs(index - middle)))
+                .forEach(order::add);
+
+        List<long[]> windows = new ArrayList<>(count);
+        for (int index : order) {
+            long start = count == 1 ? 0 : span * index / (count - 1);
+            windows.add(new long[]{start, start + size});
+        }
+        return windows;
+    }
+
+    /**
+     * Snaps each window to word boundaries within {@code text}, which holds the characters of the
+     * document starting at {@code textStart}.
+     */
+    private List<Window> snapWindows(String text, long textStart, List<long[]> windows) {
+        List<Window> snapped = new ArrayList<>(windows.size());
+        for (long[] window : windows) {
+            int from = wordStart(text, (int) (window[0] - textStart));
+            int to = wordEnd(text, (int) (window[1] - textStart));
+            snapped.add(new Window(text, from, to, textStart + from, textStart + to));
+        }
+        return snapped;
+    }
+
+    // Moves a window start forward past a partial word
+    private int wordStart(String text, int position) {
+        int limit = Math.min(text.length(), position + WORD_BOUNDARY_LOOKAHEAD);
+        if (position == 0) {
+            return 0;
+        }
+        for (int i = position; i < limit; i++) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return position;
+    }
+
+    // Moves a window end back before a partial word
+    private int wordEnd(String text, int position) {
+        int limit = Math.max(0, position - WORD_BOUNDARY_LOOKAHEAD);
+        if (position >= text.length()) {
+            return text.length();
+        }
+        for (int i = position; i > limit; i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return position;
+    }
+
+    private LanguageResult detect(String cleanText) {
+        return languageDetector.get().detect(cleanText);
     }
 
     private boolean isTextEmpty(String text) {
-        return text == null || text.trim().isEmpty();
+        return text == null || text.isBlank();
     }
 
     private boolean isTextTooShort(String text) {
         return text.length() < minTextLength;
     }
 
+    // A sampled window: text[from, to) is the document's [start, end)
+    private record Window(String text, int from, int to, long start, long end) {
+    }
+
+    @Override
+    public String getTextSearchConfig(String languageCode) {
+        String config = getLanguageName(languageCode).toLowerCase(Locale.ROOT);
+        return TEXT_SEARCH_CONFIGS.contains(config) ? config : DEFAULT_TEXT_SEARCH_CONFIG;
+    }
+
     public String getLanguageName(String languageCode) {
         if (languageCode == null || languageCode.equals("unknown")) {
             return "Unknown";
@@ -105,4 +328,4 @@ public class TikaLanguageDetectionServiceImpl implements LanguageDetectionServic
         Locale locale = new Locale(languageCode);
         return locale.getDisplayLanguage(Locale.ENGLISH);
     }
-}
\ No newline at end of file
+}
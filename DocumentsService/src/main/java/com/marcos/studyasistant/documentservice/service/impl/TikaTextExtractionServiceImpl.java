@@ -0,0 +1,268 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.dto.ExtractedTextDto;
+import com.marcos.studyasistant.documentservice.service.TextExtractionService;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One Tika engine for the whole service. The parser and detector configuration is loaded
+ * once and shared by every processing worker ({@link Tika} is thread-safe).
+ */
+@Service
+@Slf4j
+public class TikaTextExtractionServiceImpl implements TextExtractionService {
+
+    private static final String SAMPLE_TEXT = "Warm-up sample for the document extraction engine.";
+
+    private final Tika tika;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${documents.extraction.warmup.enabled:true}")
+    private boolean warmupEnabled;
+
+    // Characters kept per document, parsing stops there; -1 keeps the whole text
+    @Value("${documents.extraction.max-output-chars:-1}")
+    private int maxOutputChars;
+
+    // Extracted text kept on the heap before it spills to a compressed temp file
+    @Value("${documents.extraction.spill.memory-chars:1048576}")
+    private int spillMemoryChars;
+
+    // Parse in a pool of forked JVMs so a hostile file cannot hang or exhaust this one
+    @Value("${documents.extraction.isolation.enabled:false}")
+    private boolean isolationEnabled;
+
+    @Value("${documents.extraction.isolation.pool-size:${documents.processing.worker.concurrency:2}}")
+    private int isolationPoolSize;
+
+    @Value("${documents.extraction.isolation.heap-mb:512}")
+    private int isolationHeapMb;
+
+    @Value("${documents.extraction.isolation.timeout-ms:120000}")
+    private long isolationTimeoutMs;
+
+    // Recycle each forked JVM after this many documents to shed leaked memory
+    @Value("${documents.extraction.isolation.max-files-per-worker:100}")
+    private int isolationMaxFilesPerWorker;
+
+    private ForkParser forkParser;
+
+    public TikaTextExtractionServiceImpl(MeterRegistry meterRegistry) throws Exception {
+        this.meterRegistry = meterRegistry;
+
+        long start = System.nanoTime();
+        this.tika = new Tika(TikaConfig.getDefaultConfig());
+        long initNanos = System.nanoTime() - start;
+
+        Timer.builder("documents.extraction.engine.init")
+                .description("Time to build the shared Tika engine")
+                .register(meterRegistry)
+                .record(initNanos, TimeUnit.NANOSECONDS);
+        log.info("Tika extraction engine initialized in {} ms", TimeUnit.NANOSECONDS.toMillis(initNanos));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isolationEnabled) {
+            startForkParser();
+        }
+        if (warmupEnabled) {
+            warmUp();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (forkParser != null) {
+            forkParser.close();
+        }
+    }
+
+    /**
+     * Forked workers get their own heap cap and exit on OutOfMemoryError; a parse that runs past the
+     * timeout makes the worker kill itself. Either way only that document fails, and the pool
+     * replaces the worker on the next request.
+     */
+    private void startForkParser() {
+        forkParser = new ForkParser(TikaTextExtractionServiceImpl.class.getClassLoader(), tika.getParser());
+        forkParser.setJavaCommand(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + isolationHeapMb + "m",
+                "-XX:+ExitOnOutOfMemoryError",
+                "-Djava.awt.headless=true"));
+        forkParser.setPoolSize(isolationPoolSize);
+        forkParser.setServerParseTimeoutMillis(isolationTimeoutMs);
+        forkParser.setServerWaitTimeoutMillis(isolationTimeoutMs);
+        forkParser.setMaxFilesProcessedPerServer(isolationMaxFilesPerWorker);
+        log.info("Isolated extraction enabled: {} forked workers, {} MB heap, {} ms timeout",
+                isolationPoolSize, isolationHeapMb, isolationTimeoutMs);
+    }
+
+    private void warmUp() {
+
+        // Parse one small document per supported type so parser classes, fonts and
+        // OOXML schemas are loaded before the first real upload arrives
+        Timer.Sample total = Timer.start(meterRegistry);
+        buildSamples().forEach((mimeType, sample) -> {
+            Timer.Sample sampleTimer = Timer.start(meterRegistry);
+            try (InputStream inputStream = new ByteArrayInputStream(sample)) {
+                Metadata metadata = new Metadata();
+                metadata.set(Metadata.CONTENT_TYPE, mimeType);
+                extractPagedText(inputStream, metadata).text().discard();
+            } catch (Exception e) {
+                log.warn("Warm-up failed for {}: {}", mimeType, e.getMessage());
+            }
+            sampleTimer.stop(Timer.builder("documents.extraction.engine.warmup")
+                    .description("Time to warm the extraction engine for one document type")
+                    .tag("mimeType", mimeType)
+                    .register(meterRegistry));
+        });
+        long warmupNanos = total.stop(Timer.builder("documents.extraction.engine.warmup.total")
+                .description("Time to warm the extraction engine for all document types")
+                .register(meterRegistry));
+        log.info("Tika extraction engine warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(warmupNanos));
+    }
+
+    /**
+     * Same parse as {@link Tika#parseToString}, but the SAX output goes to a
+     * {@link SpillingTextBuffer} instead of one String, and the handler also notes where each
+     * {@code <div class="page">} starts in the text.
+     */
+    @Override
+    public ExtractedTextDto extractPagedText(InputStream inputStream, Metadata metadata) throws Exception {
+        SpillingTextBuffer text = new SpillingTextBuffer(spillMemoryChars);
+        List<Long> pageOffsets = new ArrayList<>();
+        ContentHandler pageMarker = new ContentHandlerDecorator(new WriteOutContentHandler(text, maxOutputChars)) {
+            @Override
+            public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+                if ("div".equals(localName) && "page".equals(atts.getValue("class"))) {
+                    pageOffsets.add(text.length());
+                }
+                super.startElement(uri, localName, name, atts);
+            }
+        };
+
+        Parser parser = forkParser != null ? forkParser : tika.getParser();
+        // Embedded documents are parsed with the in-process parser's configuration; the context is
+        // serialised to forked workers, so it cannot reference the fork parser itself
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, tika.getParser());
+        boolean extracted = false;
+        try {
+            // Tika closes the stream it parses; the caller owns it
+            parser.parse(CloseShieldInputStream.wrap(inputStream), new BodyContentHandler(pageMarker), metadata, context);
+            extracted = true;
+        } catch (SAXException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new TikaException("Unexpected SAX processing failure", e);
+            }
+            log.warn("Extracted text of {} truncated at {} characters",
+                    metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY), maxOutputChars);
+            extracted = true;
+        } catch (TikaException | IOException e) {
+            if (forkParser != null) {
+                // The forked worker was killed (timeout, OOM, crash); the pool starts a fresh one
+                meterRegistry.counter("documents.extraction.isolated.failures").increment();
+            }
+            throw e;
+        } finally {
+            if (extracted) {
+                text.close();
+            } else {
+                text.discard();
+            }
+        }
+        if (text.isSpilled()) {
+            log.info("Extracted text of {} spilled to disk: {} characters",
+                    metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY), text.length());
+        }
+        return new ExtractedTextDto(text, pageOffsets);
+    }
+
+    private Map<String, byte[]> buildSamples() {
+        Map<String, byte[]> samples = new LinkedHashMap<>();
+        samples.put("text/plain", SAMPLE_TEXT.getBytes(StandardCharsets.UTF_8));
+        try {
+            samples.put("application/pdf", samplePdf());
+            samples.put("application/vnd.openxmlformats-officedocument.wordprocessingml.document", sampleDocx());
+            samples.put("application/vnd.openxmlformats-officedocument.presentationml.presentation", samplePptx());
+        } catch (IOException e) {
+            log.warn("Could not build warm-up samples: {}", e.getMessage());
+        }
+        return samples;
+    }
+
+    private byte[] samplePdf() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 700);
+                content.showText(SAMPLE_TEXT);
+                content.endText();
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private byte[] sampleDocx() throws IOException {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.createParagraph().createRun().setText(SAMPLE_TEXT);
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private byte[] samplePptx() throws IOException {
+        try (XMLSlideShow presentation = new XMLSlideShow(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            XSLFTextBox textBox = presentation.createSlide().createTextBox();
+            textBox.setText(SAMPLE_TEXT);
+            presentation.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import com.marcos.studyasistant.documentservice.exceptions.UploadRejectedException;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentProcessingQueueService;
+import com.marcos.studyasistant.documentservice.service.UploadAdmissionService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for uploads, driven by the processing backlog.
+ * <p>
+ * Between the soft and the hard queue limit a growing share of uploads is turned away (0% at the
+ * soft limit, 100% at the hard one), so under a spike the queue, and with it the time to process a
+ * document, levels off instead of growing until something breaks. Uploads are also refused when
+ * the estimated wait (queue depth × recent processing time ÷ workers) passes its limit, and when
+ * one user already has too many documents waiting.
+ * <p>
+ * Rejected clients get a {@code Retry-After} equal to the time the workers need to bring the
+ * backlog back under the limit, with some jitter so that retries do not all land at once.
+ */
+@Service
+@Slf4j
+public class UploadAdmissionServiceImpl implements UploadAdmissionService {
+
+    private static final Set<ProcessingStatus> PENDING_STATUSES = EnumSet.of(ProcessingStatus.UPLOADED, ProcessingStatus.PROCESSING);
+    private static final double RETRY_AFTER_JITTER = 0.2;
+
+    private final DocumentProcessingQueueService documentProcessingQueueService;
+    private final DocumentsRepository documentsRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${documents.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${documents.admission.queue.soft-limit:50}")
+    private long queueSoftLimit;
+
+    @Value("${documents.admission.queue.hard-limit:200}")
+    private long queueHardLimit;
+
+    @Value("${documents.admission.max-estimated-wait-ms:900000}")
+    private long maxEstimatedWaitMs;
+
+    @Value("${documents.admission.per-user.max-pending:20}")
+    private long maxPendingPerUser;
+
+    // Assumed processing time until this instance has finished a job of its own
+    @Value("${documents.admission.default-processing-time-ms:30000}")
+    private long defaultProcessingTimeMs;
+
+    @Value("${documents.admission.retry-after.min-seconds:5}")
+    private long minRetryAfterSeconds;
+
+    @Value("${documents.admission.retry-after.max-seconds:600}")
+    private long maxRetryAfterSeconds;
+
+    @Value("${documents.processing.worker.concurrency:2}")
+    private int workerConcurrency;
+
+    // Refreshed on a schedule so a burst of uploads does not turn into a burst of COUNT queries;
+    // admitted uploads are counted in between so the burst itself still shows up
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    public UploadAdmissionServiceImpl(DocumentProcessingQueueService documentProcessingQueueService,
+                                      DocumentsRepository documentsRepository,
+                                      MeterRegistry meterRegistry) {
+        this.documentProcessingQueueService = documentProcessingQueueService;
+        this.documentsRepository = documentsRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("documents.admission.queue.depth", queueDepth::get)
+                .description("Processing jobs waiting for a worker, as last seen by admission control")
+                .register(meterRegistry);
+        Gauge.builder("documents.admission.processing.time", this::processingTimeMs)
+                .description("Recent processing time per document used to estimate the wait")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("documents.admission.estimated.wait", this::estimatedWaitMs)
+                .description("Estimated time for a new upload to reach a worker")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        registerThreshold("queue-soft-limit", () -> queueSoftLimit);
+        registerThreshold("queue-hard-limit", () -> queueHardLimit);
+        registerThreshold("max-estimated-wait-ms", () -> maxEstimatedWaitMs);
+        registerThreshold("per-user-max-pending", () -> maxPendingPerUser);
+    }
+
+    private void registerThreshold(String limit, Supplier<Number> value) {
+        Gauge.builder("documents.admission.threshold", value)
+                .description("Configured admission control limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${documents.admission.refresh-interval-ms:1000}")
+    public void refreshQueueDepth() {
+        try {
+            queueDepth.set(documentProcessingQueueService.getQueueDepth());
+        } catch (RuntimeException e) {
+            // Keep deciding on the last known depth rather than failing uploads
+            log.warn("Could not refresh the processing queue depth: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void admit(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+
+        long depth = queueDepth.get();
+        if (depth >= queueHardLimit || (depth > queueSoftLimit && shed(depth))) {
+            reject("queue", drainSeconds(depth - queueSoftLimit + 1),
+                    "El servicio está procesando demasiados documentos");
+        }
+
+        long estimatedWaitMs = estimatedWaitMs();
+        if (estimatedWaitMs > maxEstimatedWaitMs) {
+            long excessJobs = (estimatedWaitMs - maxEstimatedWaitMs) * workers() / processingTimeMs() + 1;
+            reject("wait", drainSeconds(excessJobs),
+                    "El tiempo de espera para procesar documentos es demasiado alto");
+        }
+
+        if (userId != null) {
+            long pending = documentsRepository.countByUserIdAndStatusIn(userId, PENDING_STATUSES);
+            if (pending >= maxPendingPerUser) {
+                reject("user", drainSeconds(pending - maxPendingPerUser + 1),
+                        "Tienes demasiados documentos pendientes de procesar (" + pending + ")");
+            }
+        }
+
+        queueDepth.incrementAndGet();
+        meterRegistry.counter("documents.admission.decisions", "outcome", "admitted", "reason", "none").increment();
+    }
+
+    // Share of uploads turned away grows linearly from the soft to the hard limit
+    private boolean shed(long depth) {
+        double pressure = (double) (depth - queueSoftLimit) / Math.max(1, queueHardLimit - queueSoftLimit);
+        return ThreadLocalRandom.current().nextDouble() < pressure;
+    }
+
+    private void reject(String reason, long retryAfterSeconds, String message) {
+        meterRegistry.counter("documents.admission.decisions", "outcome", "rejected", "reason", reason).increment();
+        log.info("Upload rejected ({}), queue depth {}, retry after {} s", reason, queueDepth.get(), retryAfterSeconds);
+        throw new UploadRejectedException(message + ", vuelve a intentarlo en " + retryAfterSeconds + " segundos",
+                retryAfterSeconds);
+    }
+
+    // Time the workers need to get through this many jobs, with jitter, within the configured bounds
+    private long drainSeconds(long jobs) {
+        double seconds = Math.max(1, jobs) * processingTimeMs() / (double) workers() / 1000;
+        seconds *= 1 + ThreadLocalRandom.current().nextDouble(RETRY_AFTER_JITTER);
+        return Math.min(maxRetryAfterSeconds, Math.max(minRetryAfterSeconds, (long) Math.ceil(seconds)));
+    }
+
+    private long estimatedWaitMs() {
+        return queueDepth.get() * processingTimeMs() / workers();
+    }
+
+    private long processingTimeMs() {
+        long average = documentProcessingQueueService.getAverageProcessingTimeMs();
+        return Math.max(1, average > 0 ? average : defaultProcessingTimeMs);
+    }
+
+    private int workers() {
+        return Math.max(1, workerConcurrency);
+    }
+}
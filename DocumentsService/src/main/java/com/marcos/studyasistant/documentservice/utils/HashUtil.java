@@ -5,35 +5,43 @@ import org.springframework.stereotype.Component;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Component
 @Slf4j
 public class HashUtil {
 
-    public static String generateSHA256Hash(String input) {
-        log.info("Generating SHA-256 hash for document: " + input);
+    private static final HexFormat HEX = HexFormat.of();
 
+    public static String generateSHA256Hash(String input) {
         if (input == null || input.isEmpty()) {
             log.warn("Input string is null or empty, returning empty hash.");
             return "";
         }
 
+        log.debug("Generating SHA-256 hash for {} characters", input.length());
+        MessageDigest digest = newSHA256Digest();
+        byte[] hashBytes = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+        return HEX.formatHex(hashBytes);
+    }
+
+    /**
+     * Creates a fresh SHA-256 digest, meant to be fed incrementally
+     * (e.g. through a {@link java.security.DigestInputStream}).
+     */
+    public static MessageDigest newSHA256Digest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hashBytes);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 no está disponible", e);
         }
     }
 
-    private static String bytesToHex(byte[] bytes) {
-        log.info("Converting byte array to hex string.");
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
+    /**
+     * Completes the given digest and returns it as a lowercase hex string.
+     */
+    public static String toHex(MessageDigest digest) {
+        return HEX.formatHex(digest.digest());
     }
 
 }
@@ -0,0 +1,216 @@
+package com.marcos.studyasistant.documentservice.utils;
+
+import org.apache.commons.io.input.CharSequenceReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a keyword → tag dictionary.
+ * <p>
+ * The text is scanned once, character by character, whatever the number of keywords. Matching is
+ * case-insensitive (characters are folded one at a time, the text is never copied) and only whole
+ * words count, so {@code bill} does not match inside {@code billion}.
+ * <p>
+ * Instances are immutable once built and safe to share between threads.
+ */
+public final class KeywordAutomaton {
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final int READ_BUFFER_CHARS = 8192;
+
+    private final String[] tags;
+    // Per state: sorted edge labels and their target states
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    // Per state: keywords ending here, including the ones reached through fail links
+    private final int[][] outputLengths;
+    private final int[][] outputTags;
+    private final int maxKeywordLength;
+
+    private KeywordAutomaton(String[] tags, char[][] edgeChars, int[][] edgeTargets, int[] fail,
+                             int[][] outputLengths, int[][] outputTags) {
+        this.tags = tags;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.outputLengths = outputLengths;
+        this.outputTags = outputTags;
+        this.maxKeywordLength = Arrays.stream(outputLengths).flatMapToInt(Arrays::stream).max().orElse(0);
+    }
+
+    /**
+     * Builds the automaton from a map of tag → keywords. Blank keywords are ignored; a keyword listed
+     * under several tags counts for each of them.
+     */
+    public static KeywordAutomaton compile(Map<String, ? extends Iterable<String>> keywordsByTag) {
+        List<String> tagNames = new ArrayList<>(keywordsByTag.keySet());
+        List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        List<List<int[]>> outputs = new ArrayList<>();
+        edges.add(new TreeMap<>());
+        outputs.add(new ArrayList<>());
+
+        for (int tag = 0; tag < tagNames.size(); tag++) {
+            Iterable<String> keywords = keywordsByTag.get(tagNames.get(tag));
+            if (keywords == null) {
+                continue;
+            }
+            for (String keyword : keywords) {
+                String trimmed = keyword == null ? "" : keyword.strip();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < trimmed.length(); i++) {
+                    char c = fold(trimmed.charAt(i));
+                    Integer next = edges.get(state).get(c);
+                    if (next == null) {
+                        next = edges.size();
+                        edges.get(state).put(c, next);
+                        edges.add(new TreeMap<>());
+                        outputs.add(new ArrayList<>());
+                    }
+                    state = next;
+                }
+                outputs.get(state).add(new int[]{trimmed.length(), tag});
+            }
+        }
+
+        int stateCount = edges.size();
+        char[][] edgeChars = new char[stateCount][];
+        int[][] edgeTargets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> stateEdges = edges.get(state);
+            edgeChars[state] = stateEdges.isEmpty() ? NO_CHARS : new char[stateEdges.size()];
+            edgeTargets[state] = stateEdges.isEmpty() ? NO_INTS : new int[stateEdges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : stateEdges.entrySet()) {
+                edgeChars[state][i] = edge.getKey();
+                edgeTargets[state][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // Breadth-first so a state's fail target is always resolved before the state itself
+        int[] fail = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs.get(state).addAll(outputs.get(fail[state]));
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                int child = edgeTargets[state][i];
+                fail[child] = step(edgeChars, edgeTargets, fail, fail[state], edgeChars[state][i]);
+                queue.add(child);
+            }
+        }
+
+        int[][] outputLengths = new int[stateCount][];
+        int[][] outputTags = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            List<int[]> stateOutputs = outputs.get(state);
+            outputLengths[state] = stateOutputs.isEmpty() ? NO_INTS : new int[stateOutputs.size()];
+            outputTags[state] = stateOutputs.isEmpty() ? NO_INTS : new int[stateOutputs.size()];
+            for (int i = 0; i < stateOutputs.size(); i++) {
+                outputLengths[state][i] = stateOutputs.get(i)[0];
+                outputTags[state][i] = stateOutputs.get(i)[1];
+            }
+        }
+
+        return new KeywordAutomaton(tagNames.toArray(String[]::new), edgeChars, edgeTargets, fail,
+                outputLengths, outputTags);
+    }
+
+    /**
+     * Counts whole-word keyword hits per tag. Tags without hits are absent; iteration follows the
+     * dictionary order.
+     */
+    public Map<String, Integer> countMatches(CharSequence text) {
+        try {
+            return countMatches(new CharSequenceReader(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #countMatches(CharSequence)} over a stream of any length. Only the automaton
+     * state and whether the last few characters were part of a word are kept between reads.
+     */
+    public Map<String, Integer> countMatches(Reader text) throws IOException {
+        int[] hits = new int[tags.length];
+        // Ring of "is a letter or digit" for the characters a match may need to look back at
+        boolean[] wordChars = new boolean[maxKeywordLength + 1];
+        char[] buffer = new char[READ_BUFFER_CHARS];
+        long position = 0;
+        int state = 0;
+
+        int read;
+        while ((read = text.read(buffer)) >= 0) {
+            for (int j = 0; j < read; j++) {
+                char c = buffer[j];
+                boolean wordChar = Character.isLetterOrDigit(c);
+                // Matches ending on the previous character are complete once we know what follows them
+                if (!wordChar) {
+                    countEndingAt(state, position - 1, wordChars, hits);
+                }
+                wordChars[(int) (position % wordChars.length)] = wordChar;
+                state = step(edgeChars, edgeTargets, fail, state, fold(c));
+                position++;
+            }
+        }
+        countEndingAt(state, position - 1, wordChars, hits);
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int tag = 0; tag < tags.length; tag++) {
+            if (hits[tag] > 0) {
+                counts.put(tags[tag], hits[tag]);
+            }
+        }
+        return counts;
+    }
+
+    public int getStateCount() {
+        return fail.length;
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int[] fail, int state, char c) {
+        while (true) {
+            int index = Arrays.binarySearch(edgeChars[state], c);
+            if (index >= 0) {
+                return edgeTargets[state][index];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    // Counts the keywords of {@code state} ending at {@code end} that start on a word boundary
+    private void countEndingAt(int state, long end, boolean[] wordChars, int[] hits) {
+        int[] lengths = outputLengths[state];
+        for (int k = 0; k < lengths.length; k++) {
+            long before = end - lengths[k];
+            if (before < 0 || !wordChars[(int) (before % wordChars.length)]) {
+                hits[outputTags[state][k]]++;
+            }
+        }
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,223 @@
+package com.marcos.studyasistant.documentservice.utils;
+
+import org.apache.commons.io.input.CharSequenceReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write-once sink for extracted text. Up to {@code memoryChars} characters are kept on the heap;
+ * past that the buffered text and everything written after it go to a gzip-compressed UTF-8 temp
+ * file, so memory stays flat however large the document is.
+ * <p>
+ * {@link #close()} ends the writing; from then on any number of readers may be opened, from any
+ * thread. {@link #discard()} deletes the temp file and must be called once the text is no longer
+ * needed.
+ */
+public final class SpillingTextBuffer extends Writer {
+
+    private static final int FILE_BUFFER_BYTES = 64 * 1024;
+
+    private final int memoryChars;
+    private StringBuilder memory = new StringBuilder();
+    private Path spillFile;
+    private Writer spill;
+    private long length;
+    private boolean closed;
+
+    public SpillingTextBuffer(int memoryChars) {
+        this.memoryChars = Math.max(0, memoryChars);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int count) throws IOException {
+        ensureOpen();
+        if (spill == null && memory.length() + count > memoryChars) {
+            startSpilling();
+        }
+        if (spill != null) {
+            spill.write(chars, offset, count);
+        } else {
+            memory.append(chars, offset, count);
+        }
+        length += count;
+    }
+
+    @Override
+    public void write(String text, int offset, int count) throws IOException {
+        ensureOpen();
+        if (spill == null && memory.length() + count > memoryChars) {
+            startSpilling();
+        }
+        if (spill != null) {
+            spill.write(text, offset, count);
+        } else {
+            memory.append(text, offset, offset + count);
+        }
+        length += count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spill != null) {
+            spill.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Number of characters written so far.
+     */
+    public long length() {
+        return length;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * The gzip-compressed UTF-8 file holding the text, once it has outgrown memory.
+     */
+    public Optional<Path> spillFile() {
+        return Optional.ofNullable(spillFile);
+    }
+
+    /**
+     * Opens a reader over the whole text. The caller closes it.
+     */
+    public Reader openReader() throws IOException {
+        ensureClosed();
+        if (spillFile == null) {
+            return new CharSequenceReader(memory);
+        }
+        return new InputStreamReader(new GZIPInputStream(Files.newInputStream(spillFile), FILE_BUFFER_BYTES),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads up to {@code maxChars} characters from the start of the text.
+     */
+    public String readPrefix(int maxChars) throws IOException {
+        return readRanges(List.of(new long[]{0, Math.min(length, Math.max(0, maxChars))})).get(0);
+    }
+
+    /**
+     * Reads several {@code [start, end)} slices of the text, returned in the order they were asked
+     * for. A spilled text is decompressed once for all of them, unless the slices overlap.
+     */
+    public List<String> readRanges(List<long[]> ranges) throws IOException {
+        ensureClosed();
+        String[] slices = new String[ranges.size()];
+        List<Integer> byStart = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            byStart.add(i);
+        }
+        byStart.sort(Comparator.comparingLong(i -> ranges.get(i)[0]));
+
+        Reader reader = null;
+        long position = 0;
+        try {
+            for (int index : byStart) {
+                long start = Math.max(0, Math.min(length, ranges.get(index)[0]));
+                long end = Math.max(start, Math.min(length, ranges.get(index)[1]));
+                if (reader == null || start < position) {
+                    if (reader != null) {
+                        reader.close();
+                    }
+                    reader = openReader();
+                    position = 0;
+                }
+                while (position < start) {
+                    long skipped = reader.skip(start - position);
+                    if (skipped <= 0) {
+                        break;
+                    }
+                    position += skipped;
+                }
+                slices[index] = readChars(reader, (int) (end - start));
+                position = start + slices[index].length();
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+        return List.of(slices);
+    }
+
+    /**
+     * Deletes the temp file, if any. The text cannot be read afterwards.
+     */
+    public void discard() {
+        memory = new StringBuilder();
+        try {
+            close();
+        } catch (IOException ignored) {
+            // Only the file matters from here on
+        }
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException ignored) {
+                spillFile.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private void startSpilling() throws IOException {
+        spillFile = Files.createTempFile("extracted-", ".txt.gz");
+        spill = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(spillFile), FILE_BUFFER_BYTES), StandardCharsets.UTF_8),
+                FILE_BUFFER_BYTES);
+        spill.append(memory);
+        memory = new StringBuilder();
+    }
+
+    private static String readChars(Reader reader, int count) throws IOException {
+        char[] chars = new char[count];
+        int read = 0;
+        while (read < count) {
+            int n = reader.read(chars, read, count - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return new String(chars, 0, read);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Text buffer is closed for writing");
+        }
+    }
+
+    private void ensureClosed() throws IOException {
+        if (!closed) {
+            throw new IOException("Text buffer is still being written");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Usage count per tag on each user's documents
+CREATE TABLE user_tag_counts (
+    id          UUID         NOT NULL,
+    user_id     UUID         NOT NULL,
+    tag         VARCHAR(100) NOT NULL,
+    usage_count BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_tag_counts_user_tag UNIQUE (user_id, tag)
+);
+
+CREATE INDEX idx_user_tag_counts_user_usage ON user_tag_counts (user_id, usage_count);
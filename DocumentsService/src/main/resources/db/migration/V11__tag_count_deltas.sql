@@ -0,0 +1,8 @@
+-- Tag count changes waiting to be folded into tag_counts and user_tag_counts
+CREATE TABLE tag_count_deltas (
+    id      BIGSERIAL    NOT NULL,
+    user_id UUID         NOT NULL,
+    tag     VARCHAR(100) NOT NULL,
+    delta   BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
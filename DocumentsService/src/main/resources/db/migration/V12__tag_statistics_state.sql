@@ -0,0 +1,8 @@
+-- When any instance last recounted the tag statistics
+CREATE TABLE tag_statistics_state (
+    id            SMALLINT  NOT NULL,
+    reconciled_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO tag_statistics_state (id, reconciled_at) VALUES (1, 'epoch');
@@ -0,0 +1,13 @@
+-- Full-text search over pages. Each segment carries its owner, so the search index can be narrowed
+-- to one user before any page is ranked, and its vector, stemmed with the text search configuration
+-- of its document's language.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+ALTER TABLE document_page_segments ADD COLUMN user_id UUID NOT NULL;
+ALTER TABLE document_page_segments ADD COLUMN search_config VARCHAR(20);
+ALTER TABLE document_page_segments ADD COLUMN search_vector TSVECTOR;
+
+CREATE INDEX idx_page_segments_user_search ON document_page_segments USING GIN (user_id, search_vector);
+
+-- Segments the indexer has not reached yet
+CREATE INDEX idx_page_segments_unindexed ON document_page_segments (document_id) WHERE search_vector IS NULL;
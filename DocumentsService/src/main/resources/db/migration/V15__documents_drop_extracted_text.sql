@@ -0,0 +1,5 @@
+-- V14 moved every extracted text to the storage. Dropping the column does not free the large
+-- objects it referenced, so they are unlinked first.
+SELECT lo_unlink(extracted_text) FROM documents WHERE extracted_text IS NOT NULL;
+
+ALTER TABLE documents DROP COLUMN extracted_text;
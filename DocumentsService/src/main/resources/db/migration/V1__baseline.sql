@@ -0,0 +1,47 @@
+-- Schema as Hibernate created it from the entities before the service moved to Flyway. Databases
+-- created back then are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE documents (
+    id                UUID         NOT NULL,
+    user_id           UUID         NOT NULL,
+    original_filename VARCHAR(255) NOT NULL,
+    file_path         VARCHAR(500) NOT NULL,
+    file_size         BIGINT       NOT NULL,
+    mime_type         VARCHAR(100) NOT NULL,
+    status            VARCHAR(20) CHECK (status IN ('UPLOADED', 'PROCESSING', 'COMPLETED', 'FAILED')),
+    extracted_text    OID,
+    page_count        INTEGER,
+    language_detected VARCHAR(10),
+    processing_error  OID,
+    hash              VARCHAR(64) UNIQUE,
+    created_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6),
+    processed_at      TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE document_processing_logs (
+    id                 UUID        NOT NULL,
+    document_id        UUID        NOT NULL,
+    processing_step    VARCHAR(50) NOT NULL,
+    status             VARCHAR(20) NOT NULL,
+    details            JSONB,
+    processing_time_ms INTEGER,
+    created_at         TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE document_tags (
+    id               UUID         NOT NULL,
+    document_id      UUID         NOT NULL,
+    tag              VARCHAR(100) NOT NULL,
+    confidence_score NUMERIC(3, 2),
+    created_at       TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE document_processing_logs
+    ADD CONSTRAINT FKekvr12rji6o2wp38vps8sm8ms FOREIGN KEY (document_id) REFERENCES documents;
+
+ALTER TABLE document_tags
+    ADD CONSTRAINT FKc99c5qjulwx9gru07yrhicgd2 FOREIGN KEY (document_id) REFERENCES documents;
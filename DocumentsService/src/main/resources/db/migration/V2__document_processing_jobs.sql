@@ -0,0 +1,18 @@
+-- Durable processing queue: one job per document, claimed by the workers of any instance under a lease
+CREATE TABLE document_processing_jobs (
+    id               UUID        NOT NULL,
+    document_id      UUID        NOT NULL UNIQUE,
+    status           VARCHAR(20) NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED')),
+    attempts         INTEGER     NOT NULL,
+    last_error       TEXT,
+    lease_owner      VARCHAR(100),
+    lease_expires_at TIMESTAMP(6),
+    created_at       TIMESTAMP(6),
+    updated_at       TIMESTAMP(6),
+    started_at       TIMESTAMP(6),
+    finished_at      TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_processing_jobs_status_created ON document_processing_jobs (status, created_at);
+CREATE INDEX idx_processing_jobs_status_lease ON document_processing_jobs (status, lease_expires_at);
@@ -0,0 +1,20 @@
+-- Resumable chunked uploads, each backed by a MinIO multipart upload
+CREATE TABLE document_upload_sessions (
+    id                   UUID         NOT NULL,
+    user_id              UUID         NOT NULL,
+    document_id          UUID,
+    original_filename    VARCHAR(255) NOT NULL,
+    mime_type            VARCHAR(100) NOT NULL,
+    file_path            VARCHAR(500) NOT NULL,
+    upload_id            VARCHAR(255) NOT NULL,
+    expected_size        BIGINT,
+    highest_chunk_number INTEGER,
+    last_chunk_number    INTEGER,
+    status               VARCHAR(20)  NOT NULL CHECK (status IN ('ACTIVE', 'FINALIZING', 'COMPLETED', 'ABORTED')),
+    created_at           TIMESTAMP(6),
+    updated_at           TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+-- The sweeper looks for sessions left idle
+CREATE INDEX idx_upload_sessions_status_updated ON document_upload_sessions (status, updated_at);
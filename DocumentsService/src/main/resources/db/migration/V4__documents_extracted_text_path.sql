@@ -0,0 +1,3 @@
+-- Extracted text is stored as a gzip object in MinIO; documents keep its path and length
+ALTER TABLE documents ADD COLUMN extracted_text_path VARCHAR(500);
+ALTER TABLE documents ADD COLUMN extracted_text_length BIGINT;
@@ -0,0 +1,13 @@
+-- Extracted text split into pages, or into sections for formats without pages
+CREATE TABLE document_page_segments (
+    id             UUID        NOT NULL,
+    document_id    UUID        NOT NULL,
+    segment_number INTEGER     NOT NULL,
+    segment_type   VARCHAR(10) NOT NULL CHECK (segment_type IN ('PAGE', 'SECTION')),
+    start_offset   BIGINT      NOT NULL,
+    end_offset     BIGINT      NOT NULL,
+    content        TEXT        NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_page_segments_document_number UNIQUE (document_id, segment_number),
+    CONSTRAINT fk_page_segments_document FOREIGN KEY (document_id) REFERENCES documents
+);
@@ -0,0 +1,16 @@
+-- Extraction results shared by every upload of the same content
+CREATE TABLE extraction_cache (
+    content_hash      VARCHAR(64)  NOT NULL,
+    text_path         VARCHAR(500) NOT NULL,
+    text_length       BIGINT       NOT NULL,
+    page_offsets      JSONB,
+    page_count        INTEGER,
+    language_detected VARCHAR(10),
+    tags              JSONB,
+    hit_count         BIGINT       NOT NULL,
+    created_at        TIMESTAMP(6),
+    last_used_at      TIMESTAMP(6),
+    PRIMARY KEY (content_hash)
+);
+
+CREATE INDEX idx_extraction_cache_last_used ON extraction_cache (last_used_at);
@@ -0,0 +1,38 @@
+-- Uploads were unique by content hash across all users. They are unique per user now, so several
+-- users can upload the same file and share its extraction through extraction_cache. Hibernate
+-- named the old constraint itself, so it is found by its column rather than by name.
+DO $$
+DECLARE
+    old_name TEXT;
+BEGIN
+    FOR old_name IN
+        SELECT c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = 'documents'::regclass
+          AND c.contype = 'u'
+          AND cardinality(c.conkey) = 1
+          AND a.attname = 'hash'
+    LOOP
+        EXECUTE format('ALTER TABLE documents DROP CONSTRAINT %I', old_name);
+    END LOOP;
+
+    -- A unique index without a constraint would enforce the same thing
+    FOR old_name IN
+        SELECT i.relname
+        FROM pg_index x
+        JOIN pg_class i ON i.oid = x.indexrelid
+        JOIN pg_attribute a ON a.attrelid = x.indrelid AND a.attnum = x.indkey[0]
+        WHERE x.indrelid = 'documents'::regclass
+          AND x.indisunique
+          AND x.indnatts = 1
+          AND a.attname = 'hash'
+    LOOP
+        EXECUTE format('DROP INDEX %I', old_name);
+    END LOOP;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'documents'::regclass AND conname = 'uk_documents_user_hash') THEN
+        ALTER TABLE documents ADD CONSTRAINT uk_documents_user_hash UNIQUE (user_id, hash);
+    END IF;
+END $$;
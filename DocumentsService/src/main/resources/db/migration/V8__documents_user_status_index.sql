@@ -0,0 +1,2 @@
+-- Admission control counts each user's pending documents
+CREATE INDEX idx_documents_user_status ON documents (user_id, status);
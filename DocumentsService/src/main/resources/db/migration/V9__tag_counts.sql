@@ -0,0 +1,10 @@
+-- Usage count per tag across all documents
+CREATE TABLE tag_counts (
+    id          UUID         NOT NULL,
+    tag         VARCHAR(100) NOT NULL,
+    usage_count BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tag_counts_tag UNIQUE (tag)
+);
+
+CREATE INDEX idx_tag_counts_usage ON tag_counts (usage_count);
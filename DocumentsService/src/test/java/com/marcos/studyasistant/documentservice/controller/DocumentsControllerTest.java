@@ -0,0 +1,84 @@
+package com.marcos.studyasistant.documentservice.controller;
+
+import com.marcos.studyasistant.documentservice.dto.DocumentFileDto;
+import com.marcos.studyasistant.documentservice.service.DocumentSearchService;
+import com.marcos.studyasistant.documentservice.service.DocumentTagService;
+import com.marcos.studyasistant.documentservice.service.DocumentUploadSessionService;
+import com.marcos.studyasistant.documentservice.service.DocumentsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DocumentsControllerTest {
+
+    private static final UUID ID = UUID.randomUUID();
+
+    private final DocumentsService documentsService = mock(DocumentsService.class);
+    private DocumentsController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new DocumentsController(documentsService, mock(DocumentUploadSessionService.class),
+                mock(DocumentTagService.class), mock(DocumentSearchService.class));
+        when(documentsService.getDocumentFile(ID))
+                .thenReturn(new DocumentFileDto(ID, "notes.pdf", "application/pdf", 10, "abc123", "path/notes.pdf"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "\"abc123\"",
+            "W/\"abc123\"",
+            "*",
+            "\"other\", \"abc123\"",
+            "\"a,b\",W/\"abc123\"",
+            "  \"other\" ,\t W/\"abc123\"  "
+    })
+    void answersNotModifiedWhenIfNoneMatchMatches(String ifNoneMatch) {
+        ResponseEntity<?> response = download(ifNoneMatch);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "\"abc1234\"",
+            "\"abc12\"",
+            "W/\"other\"",
+            "\"abc123, other\"",
+            "\"abc123",
+            "abc123"
+    })
+    void servesTheFileWhenIfNoneMatchDoesNotMatch(String ifNoneMatch) {
+        assertEquals(HttpStatus.OK, download(ifNoneMatch).getStatusCode());
+    }
+
+    @Test
+    void readsEveryIfNoneMatchHeader() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        headers.add(HttpHeaders.IF_NONE_MATCH, "W/\"abc123\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.downloadDocumentFile(ID, false, headers).getStatusCode());
+    }
+
+    @Test
+    void servesTheFileWithoutIfNoneMatch() {
+        assertEquals(HttpStatus.OK, controller.downloadDocumentFile(ID, false, new HttpHeaders()).getStatusCode());
+    }
+
+    private ResponseEntity<?> download(String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return controller.downloadDocumentFile(ID, false, headers);
+    }
+}
@@ -0,0 +1,168 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.PostgresJpaTest;
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.DocumentProcessingJob;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentProcessingJobRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentsProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@PostgresJpaTest
+class DocumentProcessingQueueServiceImplTest {
+
+    @Autowired
+    private DocumentProcessingJobRepository jobRepository;
+
+    @Autowired
+    private DocumentsRepository documentsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE document_processing_jobs, documents CASCADE");
+    }
+
+    @Test
+    void skipsJobsLockedByAnotherInstance() throws Exception {
+        UUID first = enqueue();
+        UUID second = enqueue();
+        DocumentProcessingQueueServiceImpl instance = newQueue(2, 120_000, 3);
+
+        // Another instance is in the middle of claiming the oldest job
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CompletableFuture<List<UUID>> other = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    List<UUID> ids = jobRepository.lockQueued(1);
+                    locked.countDown();
+                    await(claimed);
+                    return ids;
+                }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        instance.drainQueue();
+        claimed.countDown();
+
+        assertEquals(List.of(jobIdOf(first)), other.get(10, TimeUnit.SECONDS));
+        assertEquals(ProcessingJobStatus.QUEUED, jobOf(first).getStatus());
+        DocumentProcessingJob secondJob = jobOf(second);
+        assertEquals(ProcessingJobStatus.RUNNING, secondJob.getStatus());
+        assertEquals(1, secondJob.getAttempts());
+    }
+
+    @Test
+    void requeuesAJobWhoseLeaseExpired() throws Exception {
+        UUID documentId = enqueue();
+        newQueue(1, 1, 3).drainQueue();
+        Thread.sleep(50);
+
+        newQueue(1, 120_000, 3).sweepExpiredLeases();
+
+        DocumentProcessingJob job = jobOf(documentId);
+        assertEquals(ProcessingJobStatus.QUEUED, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertNull(job.getLeaseOwner());
+        assertNull(job.getLeaseExpiresAt());
+    }
+
+    @Test
+    void failsAJobOnceItsLeaseExpiredMaxAttemptsTimes() throws Exception {
+        UUID documentId = enqueue();
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            newQueue(1, 1, 2).drainQueue();
+            Thread.sleep(50);
+            newQueue(1, 120_000, 2).sweepExpiredLeases();
+        }
+
+        DocumentProcessingJob job = jobOf(documentId);
+        assertEquals(ProcessingJobStatus.FAILED, job.getStatus());
+        assertEquals(2, job.getAttempts());
+        assertTrue(job.getLastError().contains("expired 2 times"));
+        assertEquals(ProcessingStatus.FAILED, documentsRepository.findById(documentId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void renewalPushesTheLeaseForward() {
+        UUID documentId = enqueue();
+        DocumentProcessingQueueServiceImpl instance = newQueue(1, 60_000, 3);
+        instance.drainQueue();
+        LocalDateTime claimedUntil = jobOf(documentId).getLeaseExpiresAt();
+
+        ReflectionTestUtils.setField(instance, "leaseDurationMs", 600_000L);
+        instance.renewLeases();
+
+        LocalDateTime renewedUntil = jobOf(documentId).getLeaseExpiresAt();
+        assertTrue(renewedUntil.isAfter(claimedUntil.plusSeconds(500)),
+                () -> "lease " + claimedUntil + " was renewed to " + renewedUntil);
+    }
+
+    // Claimed jobs are handed to an executor that never runs them, so they stay RUNNING under their lease
+    private DocumentProcessingQueueServiceImpl newQueue(int concurrency, long leaseDurationMs, int maxAttempts) {
+        DocumentProcessingQueueServiceImpl queue = new DocumentProcessingQueueServiceImpl(jobRepository,
+                documentsRepository, mock(DocumentsProcessingService.class), command -> { },
+                transactionManager, concurrency);
+        ReflectionTestUtils.setField(queue, "leaseDurationMs", leaseDurationMs);
+        ReflectionTestUtils.setField(queue, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(queue, "orphanGraceMs", 600_000L);
+        ReflectionTestUtils.setField(queue, "sweepBatchSize", 100);
+        return queue;
+    }
+
+    private UUID enqueue() {
+        DocumentEntity document = documentsRepository.save(DocumentEntity.builder()
+                .userId(UUID.randomUUID())
+                .originalFilename("notes.pdf")
+                .filePath(UUID.randomUUID() + ".pdf")
+                .fileSize(1024L)
+                .mimeType("application/pdf")
+                .status(ProcessingStatus.UPLOADED)
+                .hash(UUID.randomUUID().toString())
+                .build());
+        newQueue(1, 120_000, 3).enqueue(document.getId());
+        return document.getId();
+    }
+
+    private DocumentProcessingJob jobOf(UUID documentId) {
+        return jobRepository.findAll().stream()
+                .filter(job -> job.getDocumentId().equals(documentId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private UUID jobIdOf(UUID documentId) {
+        return jobOf(documentId).getId();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
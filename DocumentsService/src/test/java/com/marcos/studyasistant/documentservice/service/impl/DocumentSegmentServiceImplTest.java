@@ -0,0 +1,187 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.DocumentPageSegment;
+import com.marcos.studyasistant.documentservice.entity.enums.SegmentType;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentPageSegmentRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.utils.SpillingTextBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DocumentSegmentServiceImplTest {
+
+    private static final int SECTION_CHARS = 10;
+    private static final int INSERT_BATCH_SIZE = 3;
+
+    private final DocumentPageSegmentRepository segmentRepository = mock(DocumentPageSegmentRepository.class);
+    private final List<DocumentPageSegment> saved = new ArrayList<>();
+    private final List<SpillingTextBuffer> buffers = new ArrayList<>();
+    private DocumentSegmentServiceImpl service;
+    private DocumentEntity document;
+
+    @BeforeEach
+    void setUp() {
+        service = new DocumentSegmentServiceImpl(segmentRepository, mock(DocumentsRepository.class));
+        ReflectionTestUtils.setField(service, "sectionChars", SECTION_CHARS);
+        ReflectionTestUtils.setField(service, "insertBatchSize", INSERT_BATCH_SIZE);
+        // The service clears its batch after saving it, so keep copies
+        doAnswer(invocation -> {
+            List<DocumentPageSegment> batch = invocation.getArgument(0);
+            saved.addAll(batch);
+            return List.copyOf(batch);
+        }).when(segmentRepository).saveAll(anyList());
+        document = DocumentEntity.builder().id(UUID.randomUUID()).userId(UUID.randomUUID()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffers.forEach(SpillingTextBuffer::discard);
+    }
+
+    @Test
+    void cutsSectionsAfterTheLastLineBreakInTheSecondHalf() throws IOException {
+        String text = "abc def\nghij klm nopq\nrs";
+
+        int count = service.storeSegments(document, text(text, false), null);
+
+        assertEquals(List.of("abc def\n", "ghij klm ", "nopq\nrs"), contents());
+        assertEquals(3, count);
+        assertContiguous(text, SegmentType.SECTION);
+    }
+
+    @Test
+    void cutsSectionsAtWhitespaceThenAtTheSectionSize() throws IOException {
+        // No break in the second half of the first window, so it is cut at the full section size
+        String text = "abcd efghijklmnopqrstu vwxyz";
+
+        service.storeSegments(document, text(text, false), null);
+
+        assertEquals(List.of("abcd efghi", "jklmnopqrs", "tu vwxyz"), contents());
+        assertContiguous(text, SegmentType.SECTION);
+    }
+
+    @Test
+    void keepsAFullLastSectionWhole() throws IOException {
+        String text = "0123456789abcdefghij";
+
+        service.storeSegments(document, text(text, false), null);
+
+        assertEquals(List.of("0123456789", "abcdefghij"), contents());
+        assertContiguous(text, SegmentType.SECTION);
+    }
+
+    @Test
+    void splitsPagesAtTheirOffsets() throws IOException {
+        String text = "cover page one\fpage two\fthree";
+        List<Long> pageOffsets = List.of(6L, 14L, 23L);
+
+        int count = service.storeSegments(document, text(text, false), pageOffsets);
+
+        // Whatever precedes the first page offset belongs to page 1
+        assertEquals(List.of("cover page one", "\fpage two", "\fthree"), contents());
+        assertEquals(3, count);
+        assertContiguous(text, SegmentType.PAGE);
+    }
+
+    @Test
+    void readsPagesFromASpilledText() throws IOException {
+        String text = "x".repeat(5000) + "y".repeat(3000) + "z".repeat(2000);
+
+        service.storeSegments(document, text(text, true), List.of(0L, 5000L, 8000L));
+
+        assertEquals(List.of("x".repeat(5000), "y".repeat(3000), "z".repeat(2000)), contents());
+        assertContiguous(text, SegmentType.PAGE);
+    }
+
+    @Test
+    void savesInBatchesAndKeepsOffsetsAcrossThem() throws IOException {
+        String text = "0123456789".repeat(7) + "end";
+
+        int count = service.storeSegments(document, text(text, true), null);
+
+        assertEquals(8, count);
+        verify(segmentRepository, times(3)).saveAll(anyList());
+        assertContiguous(text, SegmentType.SECTION);
+    }
+
+    @Test
+    void replacesNulWithoutShiftingOffsets() throws IOException {
+        String text = "ab\u0000cd";
+
+        service.storeSegments(document, text(text, false), null);
+
+        assertEquals(List.of("ab cd"), contents());
+        assertEquals(5L, saved.get(0).getEndOffset());
+    }
+
+    @Test
+    void storesNothingForEmptyText() throws IOException {
+        int count = service.storeSegments(document, text("", false), null);
+
+        assertEquals(0, count);
+        verify(segmentRepository).deleteByDocumentId(document.getId());
+        verify(segmentRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void stopsWhenInterrupted() throws IOException {
+        SpillingTextBuffer text = text("0123456789".repeat(10), false);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> service.storeSegments(document, text, null));
+        } finally {
+            Thread.interrupted();
+        }
+        verify(segmentRepository, never()).saveAll(anyList());
+    }
+
+    private SpillingTextBuffer text(String content, boolean spill) throws IOException {
+        SpillingTextBuffer buffer = new SpillingTextBuffer(spill ? 0 : Integer.MAX_VALUE);
+        buffers.add(buffer);
+        buffer.write(content);
+        buffer.close();
+        assertEquals(spill, buffer.isSpilled());
+        return buffer;
+    }
+
+    private List<String> contents() {
+        return saved.stream().map(DocumentPageSegment::getContent).toList();
+    }
+
+    // Numbered from 1, each segment starting where the previous one ended, together covering the text
+    private void assertContiguous(String text, SegmentType type) {
+        long offset = 0;
+        for (int i = 0; i < saved.size(); i++) {
+            DocumentPageSegment segment = saved.get(i);
+            assertEquals(i + 1, segment.getSegmentNumber());
+            assertEquals(type, segment.getSegmentType());
+            assertEquals(document.getUserId(), segment.getUserId());
+            assertEquals(offset, segment.getStartOffset());
+            assertEquals(text.substring((int) offset, segment.getEndOffset().intValue()), segment.getContent());
+            if (type == SegmentType.SECTION) {
+                assertTrue(segment.getContent().length() <= SECTION_CHARS);
+            }
+            offset = segment.getEndOffset();
+        }
+        assertEquals(text.length(), offset);
+    }
+}
@@ -0,0 +1,244 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.PostgresJpaTest;
+import com.marcos.studyasistant.documentservice.dto.ChunkedUploadTargetDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.UploadSessionRequestDto;
+import com.marcos.studyasistant.documentservice.entity.enums.UploadSessionStatus;
+import com.marcos.studyasistant.documentservice.mappers.DocumentMapper;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentUploadSessionRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentProcessingQueueService;
+import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.service.UploadAdmissionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@PostgresJpaTest
+class DocumentUploadSessionServiceImplTest {
+
+    // Storage minimum for every chunk but the last
+    private static final byte[] FULL_CHUNK = new byte[5 * 1024 * 1024];
+    private static final byte[] LAST_CHUNK = new byte[1000];
+    private static final int MAX_CHUNK_BYTES = 8 * 1024 * 1024;
+
+    @Autowired
+    private DocumentUploadSessionRepository sessionRepository;
+
+    @Autowired
+    private DocumentsRepository documentsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final DocumentsStorageService storageService = mock(DocumentsStorageService.class);
+    private final DocumentProcessingQueueService queue = mock(DocumentProcessingQueueService.class);
+    // Chunks the storage holds, per upload id
+    private final Map<String, SortedMap<Integer, Long>> storedChunks = new ConcurrentHashMap<>();
+    private DocumentUploadSessionServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate.execute("TRUNCATE document_upload_sessions, documents CASCADE");
+
+        when(storageService.initiateChunkedUpload(anyString(), anyString())).thenAnswer(invocation -> {
+            String uploadId = UUID.randomUUID().toString();
+            storedChunks.put(uploadId, new TreeMap<>());
+            return new ChunkedUploadTargetDto(uploadId + ".pdf", uploadId);
+        });
+        doAnswer(invocation -> {
+            byte[] data = invocation.getArgument(3);
+            storedChunks.get((String) invocation.getArgument(1)).put(invocation.getArgument(2), (long) data.length);
+            return null;
+        }).when(storageService).uploadChunk(anyString(), anyString(), anyInt(), any());
+        when(storageService.listUploadedChunks(anyString(), anyString()))
+                .thenAnswer(invocation -> new TreeMap<>(storedChunks.get((String) invocation.getArgument(1))));
+
+        service = new DocumentUploadSessionServiceImpl(sessionRepository, documentsRepository, storageService, queue,
+                new DocumentMapper(), mock(UploadAdmissionService.class), transactionManager);
+        ReflectionTestUtils.setField(service, "maxChunkBytes", MAX_CHUNK_BYTES);
+        ReflectionTestUtils.setField(service, "sessionTtlHours", 24L);
+        ReflectionTestUtils.setField(service, "sweepBatchSize", 100);
+    }
+
+    @Test
+    void assemblesChunksSentOutOfOrderAndResent() {
+        UUID sessionId = initiate(null);
+
+        service.uploadChunk(sessionId, 2, FULL_CHUNK);
+        service.uploadChunk(sessionId, 3, LAST_CHUNK);
+        service.uploadChunk(sessionId, 1, FULL_CHUNK);
+        service.uploadChunk(sessionId, 2, FULL_CHUNK);
+        DocumentResponseDto document = service.finalizeUpload(sessionId);
+
+        assertEquals(2L * FULL_CHUNK.length + LAST_CHUNK.length, document.fileSize());
+        assertEquals(UploadSessionStatus.COMPLETED, service.getSession(sessionId).status());
+        assertEquals(document.id(), service.getSession(sessionId).documentId());
+        verify(queue).enqueue(document.id());
+    }
+
+    @Test
+    void resendingTheLastChunkKeepsItLast() {
+        UUID sessionId = initiate(null);
+        service.uploadChunk(sessionId, 2, LAST_CHUNK);
+
+        service.uploadChunk(sessionId, 2, LAST_CHUNK);
+        service.uploadChunk(sessionId, 1, FULL_CHUNK);
+
+        assertEquals(List.of(1, 2), service.getSession(sessionId).receivedChunks());
+    }
+
+    @Test
+    void rejectsChunksPastTheLastOne() {
+        UUID sessionId = initiate(null);
+        service.uploadChunk(sessionId, 2, LAST_CHUNK);
+
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 3, FULL_CHUNK));
+        // A second short chunk cannot be the last one as well
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 1, LAST_CHUNK));
+        assertEquals(List.of(2), service.getSession(sessionId).receivedChunks());
+    }
+
+    @Test
+    void rejectsAShortChunkBeforeOneAlreadyReceived() {
+        UUID sessionId = initiate(null);
+        service.uploadChunk(sessionId, 3, FULL_CHUNK);
+
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 2, LAST_CHUNK));
+    }
+
+    @Test
+    void validatesChunksBeforeStoringThem() throws Exception {
+        UUID sessionId = initiate(null);
+
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 0, FULL_CHUNK));
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 10_001, FULL_CHUNK));
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 1, new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> service.uploadChunk(sessionId, 1, new byte[MAX_CHUNK_BYTES + 1]));
+
+        verify(storageService, never()).uploadChunk(anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void finalizingWithMissingChunksKeepsTheSessionOpen() {
+        UUID sessionId = initiate(null);
+        service.uploadChunk(sessionId, 1, FULL_CHUNK);
+        service.uploadChunk(sessionId, 3, LAST_CHUNK);
+
+        assertThrows(IllegalStateException.class, () -> service.finalizeUpload(sessionId));
+        assertEquals(UploadSessionStatus.ACTIVE, service.getSession(sessionId).status());
+
+        service.uploadChunk(sessionId, 2, FULL_CHUNK);
+        service.finalizeUpload(sessionId);
+
+        assertEquals(UploadSessionStatus.COMPLETED, service.getSession(sessionId).status());
+    }
+
+    @Test
+    void rejectsAReceivedSizeOtherThanTheExpectedOne() {
+        UUID sessionId = initiate(LAST_CHUNK.length + 1L);
+        service.uploadChunk(sessionId, 1, LAST_CHUNK);
+
+        assertThrows(IllegalStateException.class, () -> service.finalizeUpload(sessionId));
+        assertEquals(UploadSessionStatus.ACTIVE, service.getSession(sessionId).status());
+        assertEquals(0, documentsRepository.count());
+    }
+
+    @Test
+    void onlyOneCallerFinalizesASession() throws Exception {
+        UUID sessionId = initiate(null);
+        service.uploadChunk(sessionId, 1, LAST_CHUNK);
+
+        // The first finalize is held while the storage assembles the file
+        CountDownLatch assembling = new CountDownLatch(1);
+        CountDownLatch assembled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assembling.countDown();
+            assembled.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(storageService).completeChunkedUpload(anyString(), anyString());
+        CompletableFuture<DocumentResponseDto> first = CompletableFuture.supplyAsync(() -> service.finalizeUpload(sessionId));
+        assertTrue(assembling.await(10, TimeUnit.SECONDS));
+
+        assertEquals(UploadSessionStatus.FINALIZING, service.getSession(sessionId).status());
+        assertThrows(IllegalStateException.class, () -> service.finalizeUpload(sessionId));
+        assertThrows(IllegalStateException.class, () -> service.abort(sessionId));
+        assertThrows(IllegalStateException.class, () -> service.uploadChunk(sessionId, 1, LAST_CHUNK));
+
+        assembled.countDown();
+        first.get(10, TimeUnit.SECONDS);
+
+        verify(storageService, times(1)).completeChunkedUpload(anyString(), anyString());
+        verify(storageService, never()).abortChunkedUpload(anyString(), anyString());
+        assertEquals(1, documentsRepository.count());
+    }
+
+    @Test
+    void expiresSessionsLeftIdle() throws Exception {
+        UUID idle = initiate(null);
+        UUID stuckFinalizing = initiate(null);
+        UUID recent = initiate(null);
+        jdbcTemplate.update("UPDATE document_upload_sessions SET status = 'FINALIZING' WHERE id = ?", stuckFinalizing);
+        jdbcTemplate.update("UPDATE document_upload_sessions SET updated_at = now() - interval '25 hours' WHERE id IN (?, ?)",
+                idle, stuckFinalizing);
+
+        service.expireStaleSessions();
+
+        assertEquals(UploadSessionStatus.ABORTED, service.getSession(idle).status());
+        assertEquals(UploadSessionStatus.ABORTED, service.getSession(stuckFinalizing).status());
+        assertEquals(UploadSessionStatus.ACTIVE, service.getSession(recent).status());
+        verify(storageService).abortChunkedUpload(eq(filePathOf(idle)), anyString());
+        verify(storageService).abortChunkedUpload(eq(filePathOf(stuckFinalizing)), anyString());
+        verify(storageService, times(2)).abortChunkedUpload(anyString(), anyString());
+    }
+
+    @Test
+    void aChunkKeepsASessionAlive() throws Exception {
+        UUID sessionId = initiate(null);
+        jdbcTemplate.update("UPDATE document_upload_sessions SET updated_at = now() - interval '25 hours' WHERE id = ?", sessionId);
+
+        service.uploadChunk(sessionId, 1, FULL_CHUNK);
+        service.expireStaleSessions();
+
+        assertEquals(UploadSessionStatus.ACTIVE, service.getSession(sessionId).status());
+        verify(storageService, never()).abortChunkedUpload(anyString(), anyString());
+    }
+
+    private UUID initiate(Long expectedSize) {
+        return service.initiate(new UploadSessionRequestDto(UUID.randomUUID(), "notes.pdf", "application/pdf", expectedSize)).id();
+    }
+
+    private String filePathOf(UUID sessionId) {
+        return sessionRepository.findById(sessionId).orElseThrow().getFilePath();
+    }
+}
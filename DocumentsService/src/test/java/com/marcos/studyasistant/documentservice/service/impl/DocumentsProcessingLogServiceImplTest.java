@@ -0,0 +1,172 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.DocumentProcessingLog;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentProcessingLogRepository;
+import com.marcos.studyasistant.documentservice.service.impl.DocumentsProcessingLogServiceImpl.OverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentsProcessingLogServiceImplTest {
+
+    private final DocumentProcessingLogRepository logRepository = mock(DocumentProcessingLogRepository.class);
+    private final DocumentEntity document = DocumentEntity.builder().id(UUID.randomUUID()).build();
+    // Flushes handed to the executor; they only run when a test runs them
+    private final List<Runnable> scheduledFlushes = new ArrayList<>();
+    // Steps of each batch and each single record passed to the repository, as they were at the call
+    private final List<List<String>> savedBatches = new ArrayList<>();
+    private final List<String> savedRecords = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(logRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            savedBatches.add(steps(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+        when(logRepository.save(any())).thenAnswer(invocation -> {
+            DocumentProcessingLog record = invocation.getArgument(0);
+            savedRecords.add(record.getProcessingStep());
+            return record;
+        });
+    }
+
+    @Test
+    void writesBufferedRecordsInBatches() {
+        DocumentsProcessingLogServiceImpl service = newService(10, 3, OverflowPolicy.WRITE_THROUGH);
+
+        logSteps(service, "download", "extract", "language", "tags", "pages");
+
+        // Every record logged once a batch is full schedules a flush, and none writes on the caller's thread
+        assertEquals(3, scheduledFlushes.size());
+        assertEquals(List.of(), savedBatches);
+
+        // The first flush drains everything, so the ones scheduled after it find nothing to write
+        scheduledFlushes.forEach(Runnable::run);
+
+        assertEquals(List.of(List.of("download", "extract", "language"), List.of("tags", "pages")), savedBatches);
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void writesTheRecordThroughWhenTheBufferIsFull() {
+        DocumentsProcessingLogServiceImpl service = newService(2, 10, OverflowPolicy.WRITE_THROUGH);
+
+        logSteps(service, "download", "extract", "language");
+
+        assertEquals(List.of("language"), savedRecords);
+        service.flush();
+        assertEquals(List.of(List.of("download", "extract")), savedBatches);
+    }
+
+    @Test
+    void dropsTheRecordWhenTheBufferIsFull() {
+        DocumentsProcessingLogServiceImpl service = newService(2, 10, OverflowPolicy.DROP);
+
+        logSteps(service, "download", "extract", "language");
+        service.shutdown();
+
+        assertEquals(List.of(List.of("download", "extract")), savedBatches);
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void aFailedWriteThroughDoesNotFailTheStep() {
+        DocumentsProcessingLogServiceImpl service = newService(1, 10, OverflowPolicy.WRITE_THROUGH);
+        doThrow(new IllegalStateException("database unavailable")).when(logRepository).save(any());
+
+        logSteps(service, "download", "extract");
+
+        verify(logRepository).save(any());
+    }
+
+    @Test
+    void retriesEachRecordAfterABatchFails() {
+        DocumentsProcessingLogServiceImpl service = newService(10, 10, OverflowPolicy.WRITE_THROUGH);
+        // The batch assigns ids before it fails, as Hibernate does on persist
+        doAnswer(invocation -> {
+            List<DocumentProcessingLog> batch = invocation.getArgument(0);
+            batch.forEach(record -> record.setId(UUID.randomUUID()));
+            throw new IllegalStateException("batch rejected");
+        }).when(logRepository).saveAll(anyIterable());
+        List<UUID> retriedIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            DocumentProcessingLog record = invocation.getArgument(0);
+            retriedIds.add(record.getId());
+            if (record.getProcessingStep().equals("extract")) {
+                throw new IllegalStateException("document was deleted");
+            }
+            savedRecords.add(record.getProcessingStep());
+            return record;
+        }).when(logRepository).save(any());
+
+        logSteps(service, "download", "extract", "language");
+        service.flush();
+
+        // The bad record is skipped and the others are inserted as new rows
+        assertEquals(List.of("download", "language"), savedRecords);
+        assertEquals(3, retriedIds.size());
+        retriedIds.forEach(id -> assertNull(id));
+    }
+
+    @Test
+    void flushEmptiesTheBufferEvenWhenEveryWriteFails() {
+        DocumentsProcessingLogServiceImpl service = newService(10, 2, OverflowPolicy.WRITE_THROUGH);
+        doThrow(new IllegalStateException("batch rejected")).when(logRepository).saveAll(anyIterable());
+        doThrow(new IllegalStateException("record rejected")).when(logRepository).save(any());
+
+        logSteps(service, "download", "extract", "language");
+        service.flush();
+        service.flush();
+
+        // Two batches on the first flush, nothing left for the second
+        verify(logRepository, times(2)).saveAll(anyIterable());
+        verify(logRepository, times(3)).save(any());
+    }
+
+    @Test
+    void readsTheHistoryAfterFlushing() {
+        DocumentsProcessingLogServiceImpl service = newService(10, 10, OverflowPolicy.WRITE_THROUGH);
+        logSteps(service, "download");
+
+        service.getDocumentProcessingHistory(document.getId());
+
+        InOrder inOrder = inOrder(logRepository);
+        inOrder.verify(logRepository).saveAll(anyIterable());
+        inOrder.verify(logRepository).findByDocumentIdOrderByCreatedAtDesc(document.getId());
+    }
+
+    private DocumentsProcessingLogServiceImpl newService(int bufferCapacity, int batchSize, OverflowPolicy overflowPolicy) {
+        return new DocumentsProcessingLogServiceImpl(logRepository, scheduledFlushes::add, bufferCapacity, batchSize,
+                overflowPolicy);
+    }
+
+    private void logSteps(DocumentsProcessingLogServiceImpl service, String... steps) {
+        for (String step : steps) {
+            service.logProcessingStep(document, step, "SUCCESS", Map.of());
+        }
+    }
+
+    private static List<String> steps(Iterable<DocumentProcessingLog> records) {
+        List<String> steps = new ArrayList<>();
+        records.forEach(record -> steps.add(record.getProcessingStep()));
+        return steps;
+    }
+}
@@ -0,0 +1,96 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.PostgresJpaTest;
+import com.marcos.studyasistant.documentservice.dto.DocumentResponseDto;
+import com.marcos.studyasistant.documentservice.dto.DocumentUploadRequestDto;
+import com.marcos.studyasistant.documentservice.dto.StoredDocumentDto;
+import com.marcos.studyasistant.documentservice.entity.DocumentProcessingJob;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingJobStatus;
+import com.marcos.studyasistant.documentservice.exceptions.DocumentProcessingException;
+import com.marcos.studyasistant.documentservice.mappers.DocumentMapper;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentProcessingJobRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.service.DocumentProcessingQueueService;
+import com.marcos.studyasistant.documentservice.service.DocumentSegmentService;
+import com.marcos.studyasistant.documentservice.service.DocumentTagService;
+import com.marcos.studyasistant.documentservice.service.DocumentsProcessingService;
+import com.marcos.studyasistant.documentservice.service.DocumentsStorageService;
+import com.marcos.studyasistant.documentservice.service.UploadAdmissionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@PostgresJpaTest
+class DocumentsServiceImplTest {
+
+    private static final String FILE_PATH = "stored-notes.pdf";
+
+    @Autowired
+    private DocumentsRepository documentsRepository;
+
+    @Autowired
+    private DocumentProcessingJobRepository jobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final DocumentsStorageService storageService = mock(DocumentsStorageService.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate.execute("TRUNCATE document_processing_jobs, documents CASCADE");
+        when(storageService.uploadDocument(any())).thenReturn(new StoredDocumentDto(FILE_PATH, "a".repeat(64)));
+    }
+
+    @Test
+    void storesTheDocumentTogetherWithItsJob() {
+        DocumentProcessingQueueService queue = new DocumentProcessingQueueServiceImpl(jobRepository, documentsRepository,
+                mock(DocumentsProcessingService.class), Runnable::run, transactionManager, 1);
+
+        DocumentResponseDto response = newService(queue).uploadDocument(request());
+
+        List<DocumentProcessingJob> jobs = jobRepository.findAll();
+        assertEquals(1, jobs.size());
+        assertEquals(response.id(), jobs.get(0).getDocumentId());
+        assertEquals(ProcessingJobStatus.QUEUED, jobs.get(0).getStatus());
+        assertEquals(1, documentsRepository.count());
+    }
+
+    @Test
+    void leavesNoDocumentBehindWhenItCannotBeQueued() throws Exception {
+        DocumentProcessingQueueService queue = mock(DocumentProcessingQueueService.class);
+        doThrow(new IllegalStateException("queue unavailable")).when(queue).enqueue(any());
+
+        assertThrows(DocumentProcessingException.class, () -> newService(queue).uploadDocument(request()));
+
+        assertEquals(0, documentsRepository.count());
+        verify(storageService).deleteDocument(FILE_PATH);
+    }
+
+    private DocumentsServiceImpl newService(DocumentProcessingQueueService queue) {
+        return new DocumentsServiceImpl(documentsRepository, storageService, queue, new DocumentMapper(),
+                mock(DocumentSegmentService.class), mock(UploadAdmissionService.class), mock(DocumentTagService.class),
+                transactionManager);
+    }
+
+    private DocumentUploadRequestDto request() {
+        return new DocumentUploadRequestDto(UUID.randomUUID(),
+                new MockMultipartFile("file", "notes.pdf", "application/pdf", new byte[]{1, 2, 3}));
+    }
+}
@@ -0,0 +1,200 @@
+package com.marcos.studyasistant.documentservice.service.impl;
+
+import com.marcos.studyasistant.documentservice.PostgresJpaTest;
+import com.marcos.studyasistant.documentservice.entity.DocumentEntity;
+import com.marcos.studyasistant.documentservice.entity.enums.ProcessingStatus;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentTagRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.DocumentsRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.TagCountRepository;
+import com.marcos.studyasistant.documentservice.reposiroty.UserTagCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@PostgresJpaTest
+class TagStatisticsServiceImplTest {
+
+    // The advisory lock the service takes around flushes and recounts
+    private static final String HOLD_COUNTERS_LOCK = "SELECT pg_advisory_xact_lock(7461676373000)";
+
+    @Autowired
+    private DocumentTagRepository tagRepository;
+
+    @Autowired
+    private DocumentsRepository documentsRepository;
+
+    @Autowired
+    private TagCountRepository tagCountRepository;
+
+    @Autowired
+    private UserTagCountRepository userTagCountRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TagStatisticsServiceImpl statistics;
+    private DocumentTagServiceImpl tags;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE document_tags, documents, tag_counts, user_tag_counts, tag_count_deltas CASCADE");
+        jdbcTemplate.update("UPDATE tag_statistics_state SET reconciled_at = 'epoch'");
+
+        // Recounts run on the calling thread
+        statistics = new TagStatisticsServiceImpl(tagCountRepository, userTagCountRepository, namedJdbcTemplate,
+                transactionManager, Runnable::run);
+        ReflectionTestUtils.setField(statistics, "cachedTopTags", 100);
+        ReflectionTestUtils.setField(statistics, "reconcileIntervalMs", 3_600_000L);
+        tags = new DocumentTagServiceImpl(tagRepository, documentsRepository, statistics);
+    }
+
+    @Test
+    void flushedCountsMatchAFullRecount() {
+        UUID ana = UUID.randomUUID();
+        UUID luis = UUID.randomUUID();
+        DocumentEntity algebra = document(ana);
+        DocumentEntity physics = document(ana);
+        DocumentEntity history = document(luis);
+
+        tags.addTags(algebra, List.of("Exam", "math", "exam "));
+        tags.addAutoGeneratedTags(physics, Map.of("math", new BigDecimal("0.90"), "physics", new BigDecimal("0.80")));
+        tags.addTagsToDocuments(Map.of(history.getId(), List.of("exam", "history"), physics.getId(), List.of("exam")));
+        statistics.flush();
+
+        // Changes on both sides of a flush
+        tags.deleteAutoGeneratedTags(physics);
+        tags.addTag(history, "math", null);
+        tags.deleteDocumentTags(algebra);
+        statistics.flush();
+
+        assertCountersMatchRecount();
+        assertEquals(0, pendingDeltas());
+        assertEquals(List.of("exam", "history", "math"), statistics.getTopTags(10));
+        assertEquals(List.of("exam"), statistics.getTopTags(ana, 10));
+    }
+
+    @Test
+    void flushLeavesTheChangesPendingWhileAnotherInstanceHoldsTheLock() throws Exception {
+        tags.addTags(document(UUID.randomUUID()), List.of("exam", "math"));
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch flushed = new CountDownLatch(1);
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.execute(HOLD_COUNTERS_LOCK);
+                    locked.countDown();
+                    await(flushed);
+                }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        statistics.flush();
+        flushed.countDown();
+        other.get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, pendingDeltas());
+        assertEquals(Map.of(), counters("SELECT tag, usage_count FROM tag_counts"));
+
+        statistics.flush();
+
+        assertCountersMatchRecount();
+        assertEquals(0, pendingDeltas());
+    }
+
+    @Test
+    void reconcileRepairsTheCountersAndAbsorbsPendingChanges() {
+        UUID userId = UUID.randomUUID();
+        DocumentEntity notes = document(userId);
+        tags.addTags(notes, List.of("exam", "math"));
+        statistics.flush();
+
+        // Drifted counters, one for a tag no document has, and a change not yet flushed
+        jdbcTemplate.update("UPDATE tag_counts SET usage_count = 42 WHERE tag = 'exam'");
+        jdbcTemplate.update("UPDATE user_tag_counts SET usage_count = 7");
+        jdbcTemplate.update("INSERT INTO tag_counts (id, tag, usage_count) VALUES (gen_random_uuid(), 'ghost', 3)");
+        tags.addTag(document(userId), "physics", null);
+
+        statistics.reconcile();
+
+        assertCountersMatchRecount();
+        assertEquals(0, pendingDeltas());
+
+        // Counted by the recount, so the next flush has nothing to add for it
+        statistics.flush();
+        assertCountersMatchRecount();
+    }
+
+    @Test
+    void reconcileRunsOncePerInterval() {
+        tags.addTags(document(UUID.randomUUID()), List.of("exam"));
+        statistics.reconcile();
+        jdbcTemplate.update("UPDATE tag_counts SET usage_count = 42");
+
+        statistics.reconcile();
+
+        assertEquals(Map.of("exam", 42L), counters("SELECT tag, usage_count FROM tag_counts"));
+    }
+
+    private void assertCountersMatchRecount() {
+        assertEquals(
+                counters("SELECT tag, COUNT(*) FROM document_tags GROUP BY tag"),
+                counters("SELECT tag, usage_count FROM tag_counts WHERE usage_count <> 0"));
+        assertEquals(
+                counters("SELECT d.user_id || '/' || dt.tag, COUNT(*) FROM document_tags dt " +
+                        "JOIN documents d ON d.id = dt.document_id GROUP BY d.user_id, dt.tag"),
+                counters("SELECT user_id || '/' || tag, usage_count FROM user_tag_counts WHERE usage_count <> 0"));
+    }
+
+    private Map<String, Long> counters(String sql) {
+        Map<String, Long> counters = new HashMap<>();
+        jdbcTemplate.query(sql, row -> {
+            counters.put(row.getString(1), row.getLong(2));
+        });
+        return counters;
+    }
+
+    private long pendingDeltas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tag_count_deltas", Long.class);
+    }
+
+    private DocumentEntity document(UUID userId) {
+        return documentsRepository.save(DocumentEntity.builder()
+                .userId(userId)
+                .originalFilename("notes.pdf")
+                .filePath(UUID.randomUUID() + ".pdf")
+                .fileSize(1024L)
+                .mimeType("application/pdf")
+                .status(ProcessingStatus.COMPLETED)
+                .hash(UUID.randomUUID().toString())
+                .build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.marcos.studyasistant.documentservice.utils;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordAutomatonTest {
+
+    private static KeywordAutomaton automaton(Object... tagAndKeywords) {
+        Map<String, List<String>> dictionary = new LinkedHashMap<>();
+        for (int i = 0; i < tagAndKeywords.length; i += 2) {
+            @SuppressWarnings("unchecked")
+            List<String> keywords = (List<String>) tagAndKeywords[i + 1];
+            dictionary.put((String) tagAndKeywords[i], keywords);
+        }
+        return KeywordAutomaton.compile(dictionary);
+    }
+
+    @Test
+    void countsOnlyWholeWords() {
+        KeywordAutomaton automaton = automaton("finance", List.of("bill"));
+
+        assertEquals(Map.of("finance", 2), automaton.countMatches("Bill paid the bill."));
+        assertTrue(automaton.countMatches("a billion billing rebills").isEmpty());
+    }
+
+    @Test
+    void matchesAtTheEdgesOfTheText() {
+        KeywordAutomaton automaton = automaton("lang", List.of("java"));
+
+        assertEquals(Map.of("lang", 1), automaton.countMatches("java"));
+        assertEquals(Map.of("lang", 2), automaton.countMatches("java, (JAVA)"));
+    }
+
+    @Test
+    void ignoresCase() {
+        KeywordAutomaton automaton = automaton("lang", List.of("Straße"));
+
+        assertEquals(Map.of("lang", 2), automaton.countMatches("STRAßE und straße"));
+    }
+
+    @Test
+    void reportsKeywordsReachedThroughFailLinks() {
+        // "he" only ends inside "she"/"hers" through a fail link, and "she his" shares the "h" prefix
+        KeywordAutomaton automaton = automaton(
+                "a", List.of("he"),
+                "b", List.of("she"),
+                "c", List.of("his"),
+                "d", List.of("hers"));
+
+        assertEquals(Map.of("b", 1, "c", 1, "d", 1), automaton.countMatches("she his hers"));
+        // Whole words only: "he" inside "she" does not count, on its own it does
+        assertEquals(Map.of("a", 1, "b", 1), automaton.countMatches("she he"));
+    }
+
+    @Test
+    void countsMultiWordKeywordsAndOverlaps() {
+        KeywordAutomaton automaton = automaton(
+                "ml", List.of("machine learning", "learning"),
+                "study", List.of("learning"));
+
+        Map<String, Integer> counts = automaton.countMatches("Machine learning is learning.");
+
+        assertEquals(3, counts.get("ml"));
+        assertEquals(2, counts.get("study"));
+    }
+
+    @Test
+    void ignoresBlankKeywordsAndMissingLists() {
+        Map<String, List<String>> dictionary = new LinkedHashMap<>();
+        dictionary.put("empty", List.of(" ", ""));
+        dictionary.put("missing", null);
+        dictionary.put("db", List.of(" sql "));
+
+        KeywordAutomaton automaton = KeywordAutomaton.compile(dictionary);
+
+        assertEquals(Map.of("db", 1), automaton.countMatches("sql"));
+    }
+
+    @Test
+    void findsMatchesSplitAcrossReads() throws IOException {
+        KeywordAutomaton automaton = automaton("lang", List.of("kotlin"), "other", List.of("lin"));
+        String text = "kotlin and kotlinx, lin, kotlin";
+
+        assertEquals(Map.of("lang", 2, "other", 1), automaton.countMatches(new OneCharReader(text)));
+    }
+
+    @Test
+    void findsMatchesAcrossTheReadBuffer() throws IOException {
+        KeywordAutomaton automaton = automaton("lang", List.of("kotlin"));
+        // The keyword straddles the 8192-char read buffer; the text before it must stay a separate word
+        String text = "x".repeat(8189) + " kotlin " + "y".repeat(8190) + "kotlin";
+
+        assertEquals(Map.of("lang", 1), automaton.countMatches(new StringReader(text)));
+    }
+
+    // Hands out one character per read, so every match crosses read boundaries
+    private static final class OneCharReader extends Reader {
+        private final String text;
+        private int position;
+
+        private OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= text.length()) {
+                return -1;
+            }
+            buffer[offset] = text.charAt(position++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.marcos.studyasistant.documentservice.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LanguageTextCleanerTest {
+
+    // Fragments chosen to straddle the edges of every step: URL prefixes, e-mail parts,
+    // digit runs, kept and stripped symbols, surrogate pairs and whitespace
+    private static final String[] FRAGMENTS = {
+            "http://", "https://", "http:/", "h", "a", "Z", "com", "x.y", "_", ".", "-", "@", "/", "?",
+            "&", "=", "%", "#", "1234", "12", "9", "0000", " ", "  ", "\t", "\n", "é", "ñ", "€", "©",
+            "😀", "½", "Ⅻ", "٣", "www", "mail", "es"
+    };
+
+    // The regex chain LanguageTextCleaner replaced
+    private static String regexChain(String text) {
+        return text
+                .replaceAll("https?://[\\w\\.-]+(?:/[\\w\\.-]*)*(?:\\?[\\w&=%\\.-]*)?", " ")
+                .replaceAll("[\\w\\.-]+@[\\w\\.-]+\\.[a-zA-Z]{2,}", " ")
+                .replaceAll("\\b\\d{4,}\\b", " ")
+                .replaceAll("[^\\p{L}\\p{N}\\s\\p{Punct}]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "   ",
+            "Hola mundo, ¿qué tal?",
+            "See https://example.com/path/to?x=1&y=2 for details",
+            "http://a.b/c/d?e=f%20g.h-i tail",
+            "Write to john.doe@mail.example.org or jane@x.io.",
+            "user@https://host.com",
+            "1234 is removed, 123 is kept, a1234 too, 12345b too",
+            "2024-01-15 at 10:30",
+            "Price: 1000€ or 2000 $",
+            "emoji 😀 and © symbols ½ Ⅻ",
+            "tabs\tand\nnewlines\r\n  collapse",
+            "café naïve straße"
+    })
+    void matchesRegexChainOnExamples(String text) {
+        assertEquals(regexChain(text), LanguageTextCleaner.clean(text));
+    }
+
+    @Test
+    void matchesRegexChainOnRandomInputs() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder text = new StringBuilder();
+            int fragments = random.nextInt(12);
+            for (int k = 0; k < fragments; k++) {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String input = text.toString();
+            assertEquals(regexChain(input), LanguageTextCleaner.clean(input), () -> "input: [" + input + "]");
+        }
+    }
+
+    @Test
+    void cleansOnlyTheRequestedWindow() {
+        String text = "prefix 9999 Hola https://x.com mundo 1234 suffix";
+        int start = text.indexOf("Hola");
+        int end = text.indexOf(" suffix");
+        assertEquals(regexChain(text.substring(start, end)), LanguageTextCleaner.clean(text, start, end));
+    }
+
+    @Test
+    void nullIsEmpty() {
+        assertEquals("", LanguageTextCleaner.clean(null));
+    }
+}
@@ -0,0 +1,153 @@
+package com.marcos.studyasistant.documentservice.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillingTextBufferTest {
+
+    // Long enough for a slice to span several reads of the decompressed file
+    private static final String TEXT = buildText();
+
+    private final List<SpillingTextBuffer> buffers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        buffers.forEach(SpillingTextBuffer::discard);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readsUnsortedRangesInTheOrderAsked(boolean spill) throws IOException {
+        SpillingTextBuffer buffer = buffer(spill);
+
+        List<String> slices = buffer.readRanges(List.of(
+                new long[]{90_000, 90_100},
+                new long[]{10, 20},
+                new long[]{50_000, 70_000}));
+
+        assertEquals(List.of(TEXT.substring(90_000, 90_100), TEXT.substring(10, 20), TEXT.substring(50_000, 70_000)), slices);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readsOverlappingAndRepeatedRanges(boolean spill) throws IOException {
+        SpillingTextBuffer buffer = buffer(spill);
+
+        List<String> slices = buffer.readRanges(List.of(
+                new long[]{1_000, 5_000},
+                new long[]{2_000, 3_000},
+                new long[]{4_000, 60_000},
+                new long[]{1_000, 5_000}));
+
+        assertEquals(List.of(TEXT.substring(1_000, 5_000), TEXT.substring(2_000, 3_000),
+                TEXT.substring(4_000, 60_000), TEXT.substring(1_000, 5_000)), slices);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void clampsRangesToTheText(boolean spill) throws IOException {
+        SpillingTextBuffer buffer = buffer(spill);
+        int length = TEXT.length();
+
+        List<String> slices = buffer.readRanges(List.of(
+                new long[]{-5, 3},
+                new long[]{length - 4, length + 100},
+                new long[]{length + 10, length + 20},
+                new long[]{30, 20}));
+
+        assertEquals(List.of(TEXT.substring(0, 3), TEXT.substring(length - 4), "", ""), slices);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readsThePrefixAndTheWholeText(boolean spill) throws IOException {
+        SpillingTextBuffer buffer = buffer(spill);
+
+        assertEquals(TEXT.substring(0, 100), buffer.readPrefix(100));
+        assertEquals(TEXT, buffer.readPrefix(Integer.MAX_VALUE));
+        try (Reader reader = buffer.openReader()) {
+            assertEquals(TEXT, readAll(reader));
+        }
+    }
+
+    @Test
+    void spillsOnlyPastTheMemoryLimit() throws IOException {
+        SpillingTextBuffer buffer = new SpillingTextBuffer(10);
+        buffers.add(buffer);
+        buffer.write("0123456789");
+        assertFalse(buffer.isSpilled());
+
+        buffer.write("é");
+        buffer.close();
+
+        assertTrue(buffer.isSpilled());
+        assertEquals(11, buffer.length());
+        assertEquals(List.of("89é"), buffer.readRanges(List.<long[]>of(new long[]{8, 11})));
+    }
+
+    @Test
+    void discardDeletesTheSpillFile() throws IOException {
+        SpillingTextBuffer buffer = buffer(true);
+        Path file = buffer.spillFile().orElseThrow();
+
+        buffer.discard();
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void refusesToReadWhileWritingAndToWriteAfterClosing() throws IOException {
+        SpillingTextBuffer buffer = new SpillingTextBuffer(100);
+        buffers.add(buffer);
+        buffer.write("text");
+
+        assertThrows(IOException.class, buffer::openReader);
+        buffer.close();
+        assertThrows(IOException.class, () -> buffer.write("more"));
+    }
+
+    private SpillingTextBuffer buffer(boolean spill) throws IOException {
+        SpillingTextBuffer buffer = new SpillingTextBuffer(spill ? 1_000 : Integer.MAX_VALUE);
+        buffers.add(buffer);
+        // Several writes, so a spilled buffer holds text from both before and after it spilled
+        for (int i = 0; i < TEXT.length(); i += 700) {
+            buffer.write(TEXT, i, Math.min(700, TEXT.length() - i));
+        }
+        buffer.close();
+        assertEquals(spill, buffer.isSpilled());
+        assertEquals(TEXT.length(), buffer.length());
+        return buffer;
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder out = new StringBuilder();
+        char[] chars = new char[4096];
+        int read;
+        while ((read = reader.read(chars)) >= 0) {
+            out.append(chars, 0, read);
+        }
+        return out.toString();
+    }
+
+    private static String buildText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 100_000; i++) {
+            // Multi-byte characters so character offsets differ from UTF-8 byte offsets
+            text.append("línea ").append(i).append(" — ñandú ").append(i % 7 == 0 ? "\n" : "");
+        }
+        return text.toString();
+    }
+}